@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import com.bartoszlipinski.constraint.internal.Ids;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtering of the referenced ids, done whenever the ids of a group change. {@code Group} grows its
+ * ids array with trailing zeros, so both the copying and the no-copy case are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FilterNonZeroIdsBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    int count;
+
+    private int[] ids;
+    private int[] idsWithTrailingZeros;
+
+    @Setup
+    public void setUp() {
+        ids = new int[count];
+        idsWithTrailingZeros = new int[count * 2];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i + 1;
+            idsWithTrailingZeros[i] = i + 1;
+        }
+    }
+
+    @Benchmark
+    public int[] withoutZeros() {
+        return Ids.filterNonZeroIds(ids);
+    }
+
+    @Benchmark
+    public int[] withTrailingZeros() {
+        return Ids.filterNonZeroIds(idsWithTrailingZeros);
+    }
+}
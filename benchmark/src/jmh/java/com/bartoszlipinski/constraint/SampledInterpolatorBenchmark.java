@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.animation.TimeInterpolator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interpolating a frame of {@code count} concurrent partial animations, with a curve solved on every
+ * call (like {@code PathInterpolator}) and with the same curve sampled by {@link SampledInterpolator}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SampledInterpolatorBenchmark {
+
+    private static final int BISECTION_STEPS = 24;
+    private static final TimeInterpolator FAST_OUT_SLOW_IN = new TimeInterpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            float low = 0f;
+            float high = 1f;
+            float t = input;
+            for (int i = 0; i < BISECTION_STEPS; i++) {
+                t = (low + high) / 2;
+                if (bezier(t, 0.4f, 0.2f) < input) {
+                    low = t;
+                } else {
+                    high = t;
+                }
+            }
+            return bezier(t, 0f, 1f);
+        }
+    };
+
+    @Param({"1", "10", "50", "100"})
+    int count;
+
+    private TimeInterpolator sampled;
+    private float[] progresses;
+
+    @Setup
+    public void setUp() {
+        sampled = SampledInterpolator.of(FAST_OUT_SLOW_IN);
+        progresses = new float[count];
+        for (int i = 0; i < count; i++) {
+            progresses[i] = (float) (i + 1) / (count + 1);
+        }
+    }
+
+    @Benchmark
+    public float solved() {
+        return interpolateFrame(FAST_OUT_SLOW_IN);
+    }
+
+    @Benchmark
+    public float sampled() {
+        return interpolateFrame(sampled);
+    }
+
+    private float interpolateFrame(TimeInterpolator interpolator) {
+        float sum = 0f;
+        for (float progress : progresses) {
+            sum += interpolator.getInterpolation(progress);
+        }
+        return sum;
+    }
+
+    private static float bezier(float t, float p1, float p2) {
+        float u = 1 - t;
+        return 3 * u * u * t * p1 + 3 * u * t * t * p2 + t * t * t;
+    }
+}
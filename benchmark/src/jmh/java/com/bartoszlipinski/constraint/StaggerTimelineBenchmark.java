@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.animation.TimeInterpolator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing work done by the library on every show()/hide() and (with the animator engine) on every
+ * frame. Run with {@code ./gradlew :benchmark:jmh}, allocations are reported by the gc profiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StaggerTimelineBenchmark {
+
+    private static final int PARTIAL_DELAY = 50;
+    private static final int PARTIAL_DURATION = 250;
+    private static final int MAX_TOTAL_DURATION = 1000;
+    private static final TimeInterpolator QUADRATIC = new TimeInterpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            return input * input;
+        }
+    };
+
+    @Param({"1", "10", "100", "1000"})
+    int count;
+
+    private StaggerTimeline timeline;
+    private long midPlayTime;
+
+    @Setup
+    public void setUp() {
+        timeline = new StaggerTimeline();
+        fill(timeline, count, StaggerTimeline.NO_MAX_TOTAL_DURATION);
+        midPlayTime = timeline.totalDuration() / 2;
+    }
+
+    @Benchmark
+    public long fillLinear() {
+        fill(timeline, count, StaggerTimeline.NO_MAX_TOTAL_DURATION);
+        return timeline.totalDuration();
+    }
+
+    @Benchmark
+    public long fillCompressed() {
+        fill(timeline, count, MAX_TOTAL_DURATION);
+        return timeline.totalDuration();
+    }
+
+    @Benchmark
+    public float evaluateFrame() {
+        float sum = 0f;
+        for (int i = 0; i < timeline.count; i++) {
+            sum += QUADRATIC.getInterpolation(timeline.progress(i, midPlayTime));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int reverse() {
+        fill(timeline, count, StaggerTimeline.NO_MAX_TOTAL_DURATION);
+        return timeline.reverse(midPlayTime, PARTIAL_DURATION);
+    }
+
+    private static void fill(StaggerTimeline timeline, int count, int maxTotalDuration) {
+        long partialDuration = StaggerTimeline.effectivePartialDuration(PARTIAL_DURATION, maxTotalDuration);
+        timeline.setCount(count);
+        for (int i = 0; i < count; i++) {
+            timeline.startDelays[i] = StaggerTimeline.startDelay(
+                    i, count, PARTIAL_DELAY, partialDuration, maxTotalDuration, QUADRATIC);
+            timeline.durations[i] = partialDuration;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.animation.Animator;
+import android.animation.TimeInterpolator;
+import android.animation.ValueAnimator;
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.annotation.VisibleForTesting;
+import android.view.View;
+import android.view.animation.LinearInterpolator;
+
+/**
+ * Drives the whole staggered animation of a {@link StaggeredAnimationGroup} from a single
+ * {@link ValueAnimator}. Local progress of each view is computed from its index in the stagger,
+ * so the cost per view is a couple of arithmetic operations per frame.
+ */
+@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+final class AnimatorStaggerEngine implements ValueAnimator.AnimatorUpdateListener, Animator.AnimatorListener {
+
+    private final StaggeredAnimationGroup group;
+    private final ValueAnimator animator;
+
+    final StaggerTimeline timeline = new StaggerTimeline();
+    @VisibleForTesting View[] views = new View[0];
+    @VisibleForTesting int[] viewIds = new int[0];
+    @VisibleForTesting float[] startAlphas = new float[0];
+    @VisibleForTesting boolean[] promotedLayers = new boolean[0];
+    private int endedCount;
+    private boolean isShowing;
+    private boolean cancelled;
+    private boolean reversing;
+    private TimeInterpolator partialInterpolator;
+    private boolean useHardwareLayers;
+    @VisibleForTesting boolean seeking;
+    private boolean settling;
+    private boolean settleShowing;
+    @VisibleForTesting long seekPlayTime;
+    private long settleFrom;
+    private long settleTo;
+
+    AnimatorStaggerEngine(StaggeredAnimationGroup group) {
+        this.group = group;
+        animator = ValueAnimator.ofFloat(0f, 1f);
+        animator.setInterpolator(new LinearInterpolator());
+        animator.addUpdateListener(this);
+        animator.addListener(this);
+    }
+
+    void start(int[] ids, int[] order, boolean isShowing, boolean inReversedOrder) {
+        cancel();
+        prepareViews(ids, order, inReversedOrder, isShowing ? 0f : 1f);
+        this.isShowing = isShowing;
+        this.partialInterpolator = group.getEffectivePartialInterpolator();
+        this.useHardwareLayers = group.shouldUseHardwareLayers();
+        if (isShowing) {
+            applyPlayTime(0);
+            group.applyVisibility(true);
+        }
+        startAnimator();
+    }
+
+    /**
+     * Reverses the running staggered animation from its current position. Only views that have
+     * already started animating are animated back (the most recently started one first), the rest
+     * of them is still in the initial state, which is the target state of the reversed animation.
+     */
+    void reverse() {
+        int startedCount = timeline.reverse(animator.getCurrentPlayTime(), group.getEffectivePartialDuration());
+        for (int iteration = 0; iteration < startedCount; iteration++) {
+            startAlphas[iteration] = views[iteration] != null ? views[iteration].getAlpha() : 0f;
+        }
+        reverseRange(startedCount);
+        group.fillReversalStartDelays(timeline.startDelays, viewIds, timeline.count, startedCount);
+        reversing = true;
+        animator.cancel();
+        reversing = false;
+        isShowing = !isShowing;
+        startAnimator();
+    }
+
+    void cancel() {
+        if (animator.isStarted()) {
+            animator.cancel();
+        }
+        if (seeking) {
+            seeking = false;
+            // views are left in the showing state, the caller switches the group right after
+            isShowing = true;
+            applyFinalState();
+        }
+    }
+
+    boolean isRunning() {
+        return animator.isStarted();
+    }
+
+    boolean isSeeking() {
+        return seeking;
+    }
+
+    /**
+     * Shows the group up to {@code progress} (0 - hidden, 1 - shown), using the same timing as
+     * a staggered show. Interrupts settling, if there's any.
+     */
+    void seek(int[] ids, int[] order, float progress) {
+        if (!seeking) {
+            cancel();
+            prepareViews(ids, order, false, 0f);
+            isShowing = true;
+            partialInterpolator = group.getEffectivePartialInterpolator();
+            useHardwareLayers = group.shouldUseHardwareLayers();
+            seeking = true;
+            group.applyVisibility(true);
+        } else if (settling) {
+            settling = false;
+            animator.cancel();
+        }
+        seekPlayTime = Math.round(progress * timeline.totalDuration());
+        applyAlphas(seekPlayTime);
+    }
+
+    float getSeekProgress() {
+        long totalDuration = timeline.totalDuration();
+        return totalDuration == 0 ? 1f : (float) seekPlayTime / totalDuration;
+    }
+
+    /**
+     * Animates the seeking stagger to the shown (or hidden) state, from its current position, for
+     * at most {@code maxDuration} (negative for the natural duration of the remaining part).
+     */
+    void settle(boolean show, long maxDuration) {
+        if (!seeking) {
+            return;
+        }
+        if (settling) {
+            settling = false;
+            animator.cancel();
+        }
+        settleFrom = seekPlayTime;
+        settleTo = show ? timeline.totalDuration() : 0;
+        settleShowing = show;
+        long duration = Math.abs(settleTo - settleFrom);
+        settling = true;
+        cancelled = false;
+        animator.setDuration(maxDuration < 0 ? duration : Math.min(duration, maxDuration));
+        animator.start();
+    }
+
+    boolean isShowing() {
+        return isShowing;
+    }
+
+    private void startAnimator() {
+        endedCount = 0;
+        cancelled = false;
+        animator.setDuration(timeline.totalDuration());
+        animator.start();
+    }
+
+    private void prepareViews(int[] ids, int[] order, boolean inReversedOrder, float startAlpha) {
+        int count = order.length;
+        if (views.length < count) {
+            views = new View[count];
+            viewIds = new int[count];
+            startAlphas = new float[count];
+            promotedLayers = new boolean[count];
+        }
+        timeline.setCount(count);
+        group.fillIterationStartDelays(timeline.startDelays, inReversedOrder);
+        long partialDuration = group.getEffectivePartialDuration();
+        for (int iteration = 0; iteration < count; iteration++) {
+            int id = ids[order[inReversedOrder ? count - 1 - iteration : iteration]];
+            views[iteration] = group.getResolvedView(id);
+            viewIds[iteration] = id;
+            timeline.durations[iteration] = partialDuration;
+            startAlphas[iteration] = startAlpha;
+            promotedLayers[iteration] = false;
+        }
+    }
+
+    private void reverseRange(int count) {
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            View view = views[i];
+            views[i] = views[j];
+            views[j] = view;
+            int id = viewIds[i];
+            viewIds[i] = viewIds[j];
+            viewIds[j] = id;
+            float alpha = startAlphas[i];
+            startAlphas[i] = startAlphas[j];
+            startAlphas[j] = alpha;
+            boolean promoted = promotedLayers[i];
+            promotedLayers[i] = promotedLayers[j];
+            promotedLayers[j] = promoted;
+        }
+    }
+
+    @VisibleForTesting
+    void applyPlayTime(long playTime) {
+        applyAlphas(playTime);
+        dispatchPartialEnds(playTime);
+    }
+
+    private void applyAlphas(long playTime) {
+        float endAlpha = isShowing ? 1f : 0f;
+        for (int iteration = 0; iteration < timeline.count; iteration++) {
+            View view = views[iteration];
+            if (view != null) {
+                float progress = timeline.progress(iteration, playTime);
+                if (useHardwareLayers && progress > 0f && progress < 1f) {
+                    promoteLayer(iteration);
+                }
+                // linear without an interpolator, like the partial transitions
+                float interpolated = partialInterpolator != null
+                        ? partialInterpolator.getInterpolation(progress)
+                        : progress;
+                float startAlpha = startAlphas[iteration];
+                view.setAlpha(startAlpha + (endAlpha - startAlpha) * interpolated);
+            }
+        }
+    }
+
+    private void dispatchPartialEnds(long playTime) {
+        while (endedCount < timeline.count && playTime >= timeline.endTime(endedCount)) {
+            restoreLayer(endedCount);
+            group.staggerListener.onPartialEnd(viewIds[endedCount], endedCount);
+            endedCount++;
+        }
+    }
+
+    private void promoteLayer(int iteration) {
+        if (!promotedLayers[iteration]) {
+            promotedLayers[iteration] = true;
+            group.hardwareLayers.promote(views[iteration]);
+        }
+    }
+
+    private void restoreLayer(int iteration) {
+        if (promotedLayers[iteration]) {
+            promotedLayers[iteration] = false;
+            group.hardwareLayers.release(views[iteration]);
+        }
+    }
+
+    private void applyFinalState() {
+        int hiddenVisibility = group.getHiddenVisibility();
+        for (int iteration = 0; iteration < timeline.count; iteration++) {
+            View view = views[iteration];
+            if (view != null) {
+                if (!isShowing) {
+                    // applied right away, otherwise views would be visible until the next layout pass
+                    view.setVisibility(hiddenVisibility);
+                }
+                view.setAlpha(1f);
+                restoreLayer(iteration);
+                views[iteration] = null;
+            }
+        }
+        if (!isShowing) {
+            // also applies the final state to the views that weren't animated (see cullViews)
+            group.applyVisibility(false);
+        }
+        timeline.setCount(0);
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        if (settling) {
+            seekPlayTime = settleFrom + Math.round((settleTo - settleFrom) * animation.getAnimatedFraction());
+            applyAlphas(seekPlayTime);
+        } else {
+            applyPlayTime(animation.getCurrentPlayTime());
+        }
+    }
+
+    @Override
+    public void onAnimationStart(Animator animation) {
+        if (!seeking) {
+            group.staggerListener.onStaggerStart(isShowing);
+        }
+    }
+
+    @Override
+    public void onAnimationEnd(Animator animation) {
+        if (seeking) {
+            // progress-driven staggers are not reported to the StaggerListener
+            if (settling) {
+                settling = false;
+                if (!cancelled) {
+                    seeking = false;
+                    isShowing = settleShowing;
+                    applyFinalState();
+                }
+            }
+            return;
+        }
+        if (!cancelled) {
+            dispatchPartialEnds(Long.MAX_VALUE);
+        }
+        if (!reversing) {
+            applyFinalState();
+        }
+        group.staggerListener.onStaggerEnd(isShowing, cancelled);
+    }
+
+    @Override
+    public void onAnimationCancel(Animator animation) {
+        // final state is applied in onAnimationEnd
+        cancelled = true;
+    }
+
+    @Override
+    public void onAnimationRepeat(Animator animation) {
+        // nothing to do here
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ObjectAnimator;
+import android.animation.PropertyValuesHolder;
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.transition.TransitionValues;
+import android.support.transition.Visibility;
+import android.util.Property;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+
+import static com.bartoszlipinski.constraint.StaggerEffects.FADE;
+import static com.bartoszlipinski.constraint.StaggerEffects.SCALE;
+import static com.bartoszlipinski.constraint.StaggerEffects.SLIDE;
+
+/**
+ * Partial transition of the built-in {@link StaggerEffects}. All the properties of a view are
+ * animated by a single {@link ObjectAnimator}, using only alpha and transformation properties,
+ * which are applied to the view's render node without redrawing the view. Views appear to their
+ * rest state: opaque, not translated and not scaled.
+ */
+@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+final class EffectTransition extends Visibility {
+
+    static final float HIDDEN_SCALE = 0.8f;
+
+    private final int effects;
+    private final int slideEdge;
+
+    EffectTransition(int effects, int slideEdge) {
+        this.effects = effects;
+        this.slideEdge = slideEdge;
+    }
+
+    @Override
+    public Animator onAppear(ViewGroup sceneRoot, View view,
+                             TransitionValues startValues, TransitionValues endValues) {
+        return createEffectAnimator(sceneRoot, view, true);
+    }
+
+    @Override
+    public Animator onDisappear(ViewGroup sceneRoot, View view,
+                                TransitionValues startValues, TransitionValues endValues) {
+        return createEffectAnimator(sceneRoot, view, false);
+    }
+
+    private Animator createEffectAnimator(ViewGroup sceneRoot, View view, boolean appearing) {
+        PropertyValuesHolder[] holders = new PropertyValuesHolder[getAnimatedPropertyCount()];
+        int i = 0;
+        if ((effects & FADE) != 0) {
+            holders[i++] = createHolder(view, View.ALPHA, 0f, 1f, appearing);
+        }
+        if ((effects & SLIDE) != 0) {
+            boolean horizontal = slideEdge == Gravity.LEFT || slideEdge == Gravity.RIGHT;
+            holders[i++] = createHolder(view, horizontal ? View.TRANSLATION_X : View.TRANSLATION_Y,
+                    hiddenTranslation(sceneRoot, view), 0f, appearing);
+        }
+        if ((effects & SCALE) != 0) {
+            holders[i++] = createHolder(view, View.SCALE_X, HIDDEN_SCALE, 1f, appearing);
+            holders[i] = createHolder(view, View.SCALE_Y, HIDDEN_SCALE, 1f, appearing);
+        }
+        ObjectAnimator animator = ObjectAnimator.ofPropertyValuesHolder(view, holders);
+        if (!appearing) {
+            animator.addListener(new RestStateListener(view));
+        }
+        return animator;
+    }
+
+    private int getAnimatedPropertyCount() {
+        int count = 0;
+        if ((effects & FADE) != 0) {
+            count++;
+        }
+        if ((effects & SLIDE) != 0) {
+            count++;
+        }
+        if ((effects & SCALE) != 0) {
+            count += 2;
+        }
+        return count;
+    }
+
+    /**
+     * Appearing views are switched to the hidden state right away, so that they stay hidden during
+     * the start delay of their partial transition. Disappearing views start from their current state.
+     */
+    private static PropertyValuesHolder createHolder(View view, Property<View, Float> property,
+                                                     float hidden, float rest, boolean appearing) {
+        if (appearing) {
+            property.set(view, hidden);
+            return PropertyValuesHolder.ofFloat(property, hidden, rest);
+        }
+        return PropertyValuesHolder.ofFloat(property, property.get(view), hidden);
+    }
+
+    /**
+     * Translation moving the view just outside of {@code sceneRoot} (its parent) at the slide edge.
+     */
+    private float hiddenTranslation(ViewGroup sceneRoot, View view) {
+        switch (slideEdge) {
+            case Gravity.LEFT:
+                return -view.getRight();
+            case Gravity.TOP:
+                return -view.getBottom();
+            case Gravity.RIGHT:
+                return sceneRoot.getWidth() - view.getLeft();
+            default:
+                return sceneRoot.getHeight() - view.getTop();
+        }
+    }
+
+    /**
+     * Brings the view back to its rest state once it's hidden (or interrupted while hiding), so
+     * that it doesn't stay transparent, translated or scaled in case it's shown by other means.
+     */
+    private static final class RestStateListener extends AnimatorListenerAdapter {
+
+        private final View view;
+
+        RestStateListener(View view) {
+            this.view = view;
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            view.setAlpha(1f);
+            view.setTranslationX(0f);
+            view.setTranslationY(0f);
+            view.setScaleX(1f);
+            view.setScaleY(1f);
+        }
+    }
+}
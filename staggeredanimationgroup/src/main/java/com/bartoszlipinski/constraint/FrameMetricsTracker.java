@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.annotation.VisibleForTesting;
+import android.view.Choreographer;
+
+import com.bartoszlipinski.constraint.StaggeredAnimationGroup.OnStaggerFrameMetricsListener;
+
+/**
+ * Collects frame timings with {@link Choreographer} for the lifetime of a single staggered animation.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+final class FrameMetricsTracker implements Choreographer.FrameCallback {
+
+    // a frame is late if it took longer than this many frame intervals
+    @VisibleForTesting static final float LATE_FRAME_THRESHOLD = 1.5f;
+
+    private OnStaggerFrameMetricsListener listener;
+    private boolean isShowing;
+    private long expectedDurationNanos;
+    private long frameIntervalNanos;
+    private long startTimeNanos;
+    private long lastFrameTimeNanos;
+    @VisibleForTesting int frameCount;
+    @VisibleForTesting int droppedFrames;
+    @VisibleForTesting long maxFrameTimeNanos;
+
+    void start(OnStaggerFrameMetricsListener listener, boolean isShowing,
+               long expectedDurationNanos, long frameIntervalNanos, long startTimeNanos) {
+        if (isTracking()) {
+            finish(lastFrameTimeNanos);
+        }
+        this.listener = listener;
+        this.isShowing = isShowing;
+        this.expectedDurationNanos = expectedDurationNanos;
+        this.frameIntervalNanos = frameIntervalNanos;
+        this.startTimeNanos = startTimeNanos;
+        lastFrameTimeNanos = startTimeNanos;
+        frameCount = 0;
+        droppedFrames = 0;
+        maxFrameTimeNanos = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Stops tracking without reporting anything.
+     */
+    void stop() {
+        if (isTracking()) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            listener = null;
+        }
+    }
+
+    boolean isTracking() {
+        return listener != null;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!isTracking()) {
+            return;
+        }
+        long frameTime = frameTimeNanos - lastFrameTimeNanos;
+        if (frameTime > 0) {
+            frameCount++;
+            maxFrameTimeNanos = Math.max(maxFrameTimeNanos, frameTime);
+            if (frameTime > LATE_FRAME_THRESHOLD * frameIntervalNanos) {
+                droppedFrames += Math.round((float) frameTime / frameIntervalNanos) - 1;
+            }
+            lastFrameTimeNanos = frameTimeNanos;
+        }
+        if (frameTimeNanos - startTimeNanos >= expectedDurationNanos) {
+            finish(frameTimeNanos);
+        } else {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private void finish(long endTimeNanos) {
+        OnStaggerFrameMetricsListener listener = this.listener;
+        stop();
+        listener.onStaggerFrameMetrics(isShowing, frameCount, droppedFrames, maxFrameTimeNanos,
+                endTimeNanos - startTimeNanos, expectedDurationNanos);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.transition.Transition;
+import android.view.View;
+
+/**
+ * Keeps a view on a hardware layer while its partial transition animates it. Partial transitions
+ * are started together with the whole staggered transition, so the view is promoted only after
+ * the start delay of its partial transition passes. Created for every run, promotions of
+ * overlapping runs are counted by the shared {@link HardwareLayers}.
+ */
+@TargetApi(Build.VERSION_CODES.HONEYCOMB)
+final class HardwareLayerListener implements Transition.TransitionListener, Runnable {
+
+    private final View view;
+    private final HardwareLayers hardwareLayers;
+    private boolean promoted;
+
+    HardwareLayerListener(View view, HardwareLayers hardwareLayers) {
+        this.view = view;
+        this.hardwareLayers = hardwareLayers;
+    }
+
+    boolean isPromoted() {
+        return promoted;
+    }
+
+    @Override
+    public void run() {
+        if (!promoted) {
+            promoted = true;
+            hardwareLayers.promote(view);
+        }
+    }
+
+    private void restore() {
+        view.removeCallbacks(this);
+        if (promoted) {
+            promoted = false;
+            hardwareLayers.release(view);
+        }
+    }
+
+    @Override
+    public void onTransitionStart(@NonNull Transition transition) {
+        restore();
+        view.postDelayed(this, Math.max(0, transition.getStartDelay()));
+    }
+
+    @Override
+    public void onTransitionEnd(@NonNull Transition transition) {
+        restore();
+    }
+
+    @Override
+    public void onTransitionCancel(@NonNull Transition transition) {
+        restore();
+    }
+
+    @Override
+    public void onTransitionPause(@NonNull Transition transition) {
+        // nothing to do here
+    }
+
+    @Override
+    public void onTransitionResume(@NonNull Transition transition) {
+        // nothing to do here
+    }
+}
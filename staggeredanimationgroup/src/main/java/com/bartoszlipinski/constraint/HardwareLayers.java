@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.v4.util.SimpleArrayMap;
+import android.view.View;
+
+/**
+ * Keeps track of views promoted to hardware layers by partial animations of a group. Partial
+ * animations of consecutive runs may overlap, so a view is promoted by the first of them and gets
+ * its original layer type back only when the last one releases it.
+ */
+@TargetApi(Build.VERSION_CODES.HONEYCOMB)
+final class HardwareLayers {
+
+    private static final int COUNT = 0;
+    private static final int ORIGINAL_LAYER_TYPE = 1;
+
+    private final SimpleArrayMap<View, int[]> promotions = new SimpleArrayMap<>();
+
+    void promote(View view) {
+        int[] promotion = promotions.get(view);
+        if (promotion == null) {
+            promotion = new int[]{0, view.getLayerType()};
+            promotions.put(view, promotion);
+            if (view.getLayerType() != View.LAYER_TYPE_HARDWARE) {
+                view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+            }
+        }
+        promotion[COUNT]++;
+    }
+
+    void release(View view) {
+        int[] promotion = promotions.get(view);
+        if (promotion != null && --promotion[COUNT] == 0) {
+            promotions.remove(view);
+            view.setLayerType(promotion[ORIGINAL_LAYER_TYPE], null);
+        }
+    }
+
+    boolean isPromoted(View view) {
+        return promotions.containsKey(view);
+    }
+}
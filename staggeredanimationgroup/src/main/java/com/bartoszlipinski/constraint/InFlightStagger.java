@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.support.annotation.VisibleForTesting;
+
+/**
+ * Timing of the staggered transition that was started most recently, used to reverse it from its
+ * current position when it's interrupted.
+ */
+final class InFlightStagger {
+
+    final StaggerTimeline timeline = new StaggerTimeline();
+    @VisibleForTesting int[] viewIds = new int[0];
+    @VisibleForTesting boolean isShowing;
+    @VisibleForTesting long startTime;
+
+    void ensureCapacity(int capacity) {
+        timeline.ensureCapacity(capacity);
+        if (viewIds.length < capacity) {
+            viewIds = new int[capacity];
+        }
+    }
+
+    void start(boolean isShowing, int count, long startTime) {
+        this.isShowing = isShowing;
+        this.startTime = startTime;
+        timeline.setCount(count);
+    }
+
+    void clear() {
+        timeline.setCount(0);
+    }
+
+    boolean isRunning(long now) {
+        return now - startTime < timeline.totalDuration();
+    }
+
+    /**
+     * Reverses timing of the views that have already started animating (the most recently started
+     * one goes first), see {@link StaggerTimeline#reverse(long, long)}. Start delays have to be
+     * updated by the caller.
+     *
+     * @return number of views that have already started animating
+     */
+    int reverse(long now, long partialDuration) {
+        int startedCount = timeline.reverse(now - startTime, partialDuration);
+        for (int i = 0, j = startedCount - 1; i < j; i++, j--) {
+            int id = viewIds[i];
+            viewIds[i] = viewIds[j];
+            viewIds[j] = id;
+        }
+        isShowing = !isShowing;
+        startTime = now;
+        return startedCount;
+    }
+}
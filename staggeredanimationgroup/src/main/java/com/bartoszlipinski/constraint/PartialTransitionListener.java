@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.support.annotation.NonNull;
+import android.support.transition.Transition;
+
+/**
+ * Dispatches end of a single partial transition to {@link StaggeredAnimationGroup.StaggerListener}.
+ */
+final class PartialTransitionListener implements Transition.TransitionListener {
+
+    private final StaggeredAnimationGroup group;
+    private final int viewId;
+    private final int indexInTransition;
+
+    PartialTransitionListener(StaggeredAnimationGroup group, int viewId, int indexInTransition) {
+        this.group = group;
+        this.viewId = viewId;
+        this.indexInTransition = indexInTransition;
+    }
+
+    @Override
+    public void onTransitionStart(@NonNull Transition transition) {
+        // nothing to do here
+    }
+
+    @Override
+    public void onTransitionEnd(@NonNull Transition transition) {
+        group.staggerListener.onPartialEnd(viewId, indexInTransition);
+    }
+
+    @Override
+    public void onTransitionCancel(@NonNull Transition transition) {
+        // end is dispatched anyway
+    }
+
+    @Override
+    public void onTransitionPause(@NonNull Transition transition) {
+        // nothing to do here
+    }
+
+    @Override
+    public void onTransitionResume(@NonNull Transition transition) {
+        // nothing to do here
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.animation.TimeInterpolator;
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+import com.bartoszlipinski.constraint.internal.Preconditions;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * {@link TimeInterpolator} sampled into a lookup table, with linear interpolation between the
+ * samples. Evaluating it costs the same regardless of the sampled interpolator, which pays off for
+ * the expensive ones (e.g. {@code PathInterpolator}, which searches its path on every call). Tables
+ * are shared by everything sampling the same interpolator instance. The sampled interpolator is
+ * meant for inputs between 0 and 1, inputs outside of that range are clamped.
+ */
+public final class SampledInterpolator implements TimeInterpolator {
+
+    @VisibleForTesting static final int SAMPLE_INTERVALS = 256;
+
+    private static final Map<TimeInterpolator, SampledInterpolator> sampled =
+            new WeakHashMap<>();
+
+    private final float[] values;
+
+    private SampledInterpolator(float[] values) {
+        this.values = values;
+    }
+
+    /**
+     * @return interpolator sampled from {@code interpolator}, the same instance for every call
+     * with the same {@code interpolator} (as long as it's reachable)
+     */
+    @NonNull
+    public static SampledInterpolator of(@NonNull TimeInterpolator interpolator) {
+        Preconditions.checkNotNull(interpolator, "interpolator==null");
+        if (interpolator instanceof SampledInterpolator) {
+            return (SampledInterpolator) interpolator;
+        }
+        synchronized (sampled) {
+            SampledInterpolator sampledInterpolator = sampled.get(interpolator);
+            if (sampledInterpolator == null) {
+                sampledInterpolator = new SampledInterpolator(sample(interpolator));
+                sampled.put(interpolator, sampledInterpolator);
+            }
+            return sampledInterpolator;
+        }
+    }
+
+    private static float[] sample(TimeInterpolator interpolator) {
+        float[] values = new float[SAMPLE_INTERVALS + 1];
+        for (int i = 0; i <= SAMPLE_INTERVALS; i++) {
+            values[i] = interpolator.getInterpolation((float) i / SAMPLE_INTERVALS);
+        }
+        return values;
+    }
+
+    @Override
+    public float getInterpolation(float input) {
+        if (input <= 0f) {
+            return values[0];
+        }
+        if (input >= 1f) {
+            return values[SAMPLE_INTERVALS];
+        }
+        float position = input * SAMPLE_INTERVALS;
+        int index = (int) position;
+        float fraction = position - index;
+        return values[index] + (values[index + 1] - values[index]) * fraction;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+
+import com.bartoszlipinski.constraint.StaggeredAnimationGroup.StaggerBatching;
+
+/**
+ * Built-in {@link StaggerBatching}s. Batches are formed by consecutive views in the order of the
+ * stagger, so batching by rows (or columns) is meant to be used together with
+ * {@link StaggerOrders#topToBottom()} (or {@link StaggerOrders#leftToRight()}).
+ */
+public final class StaggerBatches {
+
+    private static final StaggerBatching ROWS = new StaggerBatching() {
+        @Override
+        public int getBatchKey(@Nullable View view, int indexInGroup) {
+            return view != null ? view.getTop() : indexInGroup;
+        }
+    };
+
+    private static final StaggerBatching COLUMNS = new StaggerBatching() {
+        @Override
+        public int getBatchKey(@Nullable View view, int indexInGroup) {
+            return view != null ? view.getLeft() : indexInGroup;
+        }
+    };
+
+    /**
+     * Every {@code size} consecutive views are animated together.
+     */
+    @NonNull
+    public static StaggerBatching chunksOf(final int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size <= 0");
+        }
+        return new StaggerBatching() {
+            @Override
+            public int getBatchKey(@Nullable View view, int indexInGroup) {
+                return indexInGroup / size;
+            }
+        };
+    }
+
+    /**
+     * Views with the same top edge are animated together.
+     */
+    @NonNull
+    public static StaggerBatching rows() {
+        return ROWS;
+    }
+
+    /**
+     * Views with the same left edge are animated together.
+     */
+    @NonNull
+    public static StaggerBatching columns() {
+        return COLUMNS;
+    }
+
+    // Suppress default constructor for noninstantiability
+    private StaggerBatches() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.animation.TimeInterpolator;
+import android.support.annotation.NonNull;
+
+import com.bartoszlipinski.constraint.StaggeredAnimationGroup.StaggerDelayProvider;
+import com.bartoszlipinski.constraint.internal.Preconditions;
+
+/**
+ * Built-in {@link StaggerDelayProvider}s.
+ */
+public final class StaggerDelays {
+
+    /**
+     * Delays of the steps are distributed along {@code curve} between 0 and {@code maxDelay} (the
+     * delay of the last step), e.g. an accelerate interpolator makes the stagger speed up. Where a
+     * non-monotonic curve (e.g. overshooting) goes back, steps start together with the previous one.
+     */
+    @NonNull
+    public static StaggerDelayProvider interpolated(final long maxDelay, @NonNull final TimeInterpolator curve) {
+        Preconditions.checkNotNull(curve, "curve==null");
+        return new StaggerDelayProvider() {
+            @Override
+            public long getStartDelay(int viewId, int indexInTransition, int count) {
+                if (count <= 1) {
+                    return 0;
+                }
+                float fraction = (float) indexInTransition / (count - 1);
+                return Math.round(curve.getInterpolation(fraction) * maxDelay);
+            }
+        };
+    }
+
+    /**
+     * Linear delays with a random jitter (between 0 and {@code maxJitter}) added to every step.
+     * The jitter depends only on {@code seed} and the index of the step, so it's the same on
+     * every run. With {@code maxJitter} larger than {@code partialDelay} a step may start together
+     * with the previous one, but never before it.
+     */
+    @NonNull
+    public static StaggerDelayProvider jittered(final long partialDelay, final long maxJitter, final long seed) {
+        return new StaggerDelayProvider() {
+            @Override
+            public long getStartDelay(int viewId, int indexInTransition, int count) {
+                long random = mix(seed + indexInTransition) >>> 1;
+                return indexInTransition * partialDelay + (maxJitter > 0 ? random % (maxJitter + 1) : 0);
+            }
+        };
+    }
+
+    // SplitMix64 finalizer, a cheap allocation-free replacement for java.util.Random
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Suppress default constructor for noninstantiability
+    private StaggerDelays() {
+        throw new AssertionError();
+    }
+}
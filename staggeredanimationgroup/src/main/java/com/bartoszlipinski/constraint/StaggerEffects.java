@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+import android.support.transition.Transition;
+import android.view.Gravity;
+
+import com.bartoszlipinski.constraint.StaggeredAnimationGroup.PartialTransitionFactory;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Built-in {@link PartialTransitionFactory}s. Effects can be combined, e.g.
+ * {@code StaggerEffects.of(StaggerEffects.FADE | StaggerEffects.SLIDE, Gravity.BOTTOM)}, and
+ * selected from XML with the {@code staggered_partialEffect} and {@code staggered_slideEdge}
+ * attributes.
+ */
+public final class StaggerEffects {
+
+    /**
+     * Fades views in and out.
+     */
+    public static final int FADE = 1;
+    /**
+     * Slides views in from (and out to) an edge of the parent.
+     */
+    public static final int SLIDE = 1 << 1;
+    /**
+     * Scales views up when showing them (and down when hiding them).
+     */
+    public static final int SCALE = 1 << 2;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef(flag = true, value = {FADE, SLIDE, SCALE})
+    public @interface Effect {
+    }
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({Gravity.LEFT, Gravity.TOP, Gravity.RIGHT, Gravity.BOTTOM})
+    public @interface SlideEdge {
+    }
+
+    @NonNull
+    public static PartialTransitionFactory fade() {
+        return of(FADE, Gravity.BOTTOM);
+    }
+
+    @NonNull
+    public static PartialTransitionFactory slideFrom(@SlideEdge int slideEdge) {
+        return of(SLIDE, slideEdge);
+    }
+
+    @NonNull
+    public static PartialTransitionFactory scaleUp() {
+        return of(SCALE, Gravity.BOTTOM);
+    }
+
+    /**
+     * @param effects   combination of {@link #FADE}, {@link #SLIDE} and {@link #SCALE}
+     * @param slideEdge edge of the parent views slide from, ignored without {@link #SLIDE}
+     */
+    @NonNull
+    public static PartialTransitionFactory of(@Effect final int effects, @SlideEdge final int slideEdge) {
+        if ((effects & (FADE | SLIDE | SCALE)) == 0) {
+            throw new IllegalArgumentException("no effects");
+        }
+        if (slideEdge != Gravity.LEFT && slideEdge != Gravity.TOP
+                && slideEdge != Gravity.RIGHT && slideEdge != Gravity.BOTTOM) {
+            throw new IllegalArgumentException("slideEdge has to be one of LEFT, TOP, RIGHT and BOTTOM");
+        }
+        return new PartialTransitionFactory() {
+            @NonNull
+            @Override
+            public Transition createPartialTransition(boolean show, int viewId, int indexInTransition) {
+                return new EffectTransition(effects, slideEdge);
+            }
+        };
+    }
+
+    // Suppress default constructor for noninstantiability
+    private StaggerEffects() {
+        throw new AssertionError();
+    }
+}
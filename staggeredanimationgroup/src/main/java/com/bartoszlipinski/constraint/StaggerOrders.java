@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.support.annotation.NonNull;
+import android.view.View;
+
+import com.bartoszlipinski.constraint.StaggeredAnimationGroup.StaggerOrder;
+import com.bartoszlipinski.constraint.internal.Preconditions;
+
+/**
+ * Built-in {@link StaggerOrder}s based on positions of views in the parent {@code ConstraintLayout}.
+ */
+public final class StaggerOrders {
+
+    // views in the same row (or column) are ordered by the secondary coordinate
+    private static final double SECONDARY_AXIS_FACTOR = 1d / (1 << 16);
+
+    private static final StaggerOrder TOP_TO_BOTTOM = new StaggerOrder() {
+        @Override
+        public double getOrderKey(@NonNull View view, int indexInGroup) {
+            return view.getTop() + view.getLeft() * SECONDARY_AXIS_FACTOR;
+        }
+    };
+
+    private static final StaggerOrder LEFT_TO_RIGHT = new StaggerOrder() {
+        @Override
+        public double getOrderKey(@NonNull View view, int indexInGroup) {
+            return view.getLeft() + view.getTop() * SECONDARY_AXIS_FACTOR;
+        }
+    };
+
+    /**
+     * Rows from top to bottom, views within a row from left to right.
+     */
+    @NonNull
+    public static StaggerOrder topToBottom() {
+        return TOP_TO_BOTTOM;
+    }
+
+    /**
+     * Columns from left to right, views within a column from top to bottom.
+     */
+    @NonNull
+    public static StaggerOrder leftToRight() {
+        return LEFT_TO_RIGHT;
+    }
+
+    /**
+     * Views closest to the point (in the parent's coordinates) go first.
+     */
+    @NonNull
+    public static StaggerOrder radial(final float x, final float y) {
+        return new StaggerOrder() {
+            @Override
+            public double getOrderKey(@NonNull View view, int indexInGroup) {
+                return distanceToCenter(view, x, y);
+            }
+        };
+    }
+
+    /**
+     * Views closest to {@code origin} (e.g. the touched view) go first. {@code origin} has to be
+     * a child of the same {@code ConstraintLayout} as the group.
+     */
+    @NonNull
+    public static StaggerOrder radialFrom(@NonNull final View origin) {
+        Preconditions.checkNotNull(origin, "origin==null");
+        return new StaggerOrder() {
+            @Override
+            public double getOrderKey(@NonNull View view, int indexInGroup) {
+                return distanceToCenter(view,
+                        (origin.getLeft() + origin.getRight()) / 2f,
+                        (origin.getTop() + origin.getBottom()) / 2f);
+            }
+        };
+    }
+
+    private static double distanceToCenter(View view, float x, float y) {
+        double dx = (view.getLeft() + view.getRight()) / 2d - x;
+        double dy = (view.getTop() + view.getBottom()) / 2d - y;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // Suppress default constructor for noninstantiability
+    private StaggerOrders() {
+        throw new AssertionError();
+    }
+}
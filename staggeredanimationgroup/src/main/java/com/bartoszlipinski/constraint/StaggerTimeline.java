@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.animation.TimeInterpolator;
+import android.support.annotation.VisibleForTesting;
+
+/**
+ * Timing model of a staggered animation: start delay and duration of every view (in the order of
+ * the stagger), evaluated at any play time. Doesn't depend on the Android framework (apart from the
+ * {@link TimeInterpolator} interface), so it's tested on a plain JVM.
+ */
+final class StaggerTimeline {
+
+    static final int NO_MAX_TOTAL_DURATION = -1;
+
+    @VisibleForTesting long[] startDelays = new long[0];
+    @VisibleForTesting long[] durations = new long[0];
+    @VisibleForTesting int count;
+
+    void ensureCapacity(int capacity) {
+        if (startDelays.length < capacity) {
+            startDelays = new long[capacity];
+            durations = new long[capacity];
+        }
+    }
+
+    void setCount(int count) {
+        ensureCapacity(count);
+        this.count = count;
+    }
+
+    long startTime(int index) {
+        return startDelays[index];
+    }
+
+    long endTime(int index) {
+        return startDelays[index] + durations[index];
+    }
+
+    long totalDuration() {
+        return totalDuration(startDelays, durations, count);
+    }
+
+    /**
+     * Local progress (0 - 1, not interpolated) of the view at {@code index}.
+     */
+    float progress(int index, long playTime) {
+        return partialProgress(playTime, startDelays[index], durations[index]);
+    }
+
+    /**
+     * Number of views that have started animating at {@code playTime}. Start delays have to be
+     * non-decreasing.
+     */
+    int startedCount(long playTime) {
+        int startedCount = 0;
+        while (startedCount < count && playTime > startDelays[startedCount]) {
+            startedCount++;
+        }
+        return startedCount;
+    }
+
+    /**
+     * Reverses durations of the views that have already started animating (the most recently started
+     * one goes first), so that they animate back for as long as they have been animating. The rest
+     * of the views get zero duration, as they are still in their initial state. Start delays and any
+     * arrays parallel to the timeline have to be updated by the caller.
+     *
+     * @return number of views that have already started animating
+     */
+    int reverse(long playTime, long partialDuration) {
+        int startedCount = startedCount(playTime);
+        for (int index = 0; index < count; index++) {
+            durations[index] = index < startedCount
+                    ? reversedDuration(playTime, startDelays[index], durations[index], partialDuration)
+                    : 0;
+        }
+        for (int i = 0, j = startedCount - 1; i < j; i++, j--) {
+            long duration = durations[i];
+            durations[i] = durations[j];
+            durations[j] = duration;
+        }
+        return startedCount;
+    }
+
+    /**
+     * Start delay of the view at {@code index}: linear, unless the whole stagger would exceed
+     * {@code maxTotalDuration}, in which case delays are compressed (along {@code curve}, if any).
+     */
+    static long startDelay(int index, int count, int partialDelay, long partialDuration,
+                           int maxTotalDuration, TimeInterpolator curve) {
+        long linearDelay = (long) index * partialDelay;
+        if (maxTotalDuration == NO_MAX_TOTAL_DURATION || count <= 1) {
+            return linearDelay;
+        }
+        long maxLastDelay = Math.max(0, maxTotalDuration - partialDuration);
+        if ((long) (count - 1) * partialDelay <= maxLastDelay) {
+            return linearDelay;
+        }
+        float fraction = (float) index / (count - 1);
+        if (curve != null) {
+            fraction = curve.getInterpolation(fraction);
+        }
+        return Math.round(fraction * maxLastDelay);
+    }
+
+    static int effectivePartialDuration(int partialDuration, int maxTotalDuration) {
+        if (maxTotalDuration == NO_MAX_TOTAL_DURATION) {
+            return partialDuration;
+        }
+        return Math.min(partialDuration, maxTotalDuration);
+    }
+
+    @VisibleForTesting
+    static float partialProgress(long playTime, long startDelay, long partialDuration) {
+        long localPlayTime = playTime - startDelay;
+        if (localPlayTime <= 0) {
+            return 0f;
+        }
+        if (localPlayTime >= partialDuration) {
+            return 1f;
+        }
+        return (float) localPlayTime / partialDuration;
+    }
+
+    /**
+     * Views animate back for as long as they have been animating. Views that were snapped to their
+     * state (zero duration) by a previous reversal get the whole partial duration.
+     */
+    @VisibleForTesting
+    static long reversedDuration(long playTime, long startDelay, long duration, long partialDuration) {
+        if (duration == 0) {
+            return partialDuration;
+        }
+        return Math.round(partialProgress(playTime, startDelay, duration) * duration);
+    }
+
+    @VisibleForTesting
+    static long totalDuration(long[] startDelays, long[] durations, int count) {
+        long totalDuration = 0;
+        for (int i = 0; i < count; i++) {
+            totalDuration = Math.max(totalDuration, startDelays[i] + durations[i]);
+        }
+        return totalDuration;
+    }
+}
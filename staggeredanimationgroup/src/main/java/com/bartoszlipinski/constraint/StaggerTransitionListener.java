@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.support.annotation.NonNull;
+import android.support.transition.Transition;
+
+/**
+ * Dispatches start and end of a single run of a staggered transition to
+ * {@link StaggeredAnimationGroup.StaggerListener}. Created for every run, as clones of a transition
+ * share its listeners. A run superseded by another {@link StaggeredAnimationGroup#show(boolean)}/
+ * {@link StaggeredAnimationGroup#hide(boolean)} call reports its end as cancelled.
+ */
+final class StaggerTransitionListener implements Transition.TransitionListener {
+
+    private final StaggeredAnimationGroup group;
+    private final boolean isShowing;
+    private final int staggerRun;
+    private boolean running;
+    private boolean cancelled;
+
+    StaggerTransitionListener(StaggeredAnimationGroup group, boolean isShowing, int staggerRun) {
+        this.group = group;
+        this.isShowing = isShowing;
+        this.staggerRun = staggerRun;
+    }
+
+    private boolean isSuperseded() {
+        return group.staggerRun != staggerRun;
+    }
+
+    @Override
+    public void onTransitionStart(@NonNull Transition transition) {
+        running = true;
+        group.staggerListener.onStaggerStart(isShowing);
+    }
+
+    @Override
+    public void onTransitionEnd(@NonNull Transition transition) {
+        if (running) {
+            running = false;
+            group.staggerListener.onStaggerEnd(isShowing, cancelled || isSuperseded());
+        }
+    }
+
+    @Override
+    public void onTransitionCancel(@NonNull Transition transition) {
+        if (running) {
+            cancelled = true;
+        }
+    }
+
+    @Override
+    public void onTransitionPause(@NonNull Transition transition) {
+        // nothing to do here
+    }
+
+    @Override
+    public void onTransitionResume(@NonNull Transition transition) {
+        // nothing to do here
+    }
+}
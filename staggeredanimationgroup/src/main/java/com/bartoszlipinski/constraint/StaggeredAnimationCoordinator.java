@@ -0,0 +1,228 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+import android.support.constraint.ConstraintLayout;
+import android.support.transition.Transition;
+import android.support.transition.TransitionManager;
+import android.support.transition.TransitionSet;
+import android.view.animation.AnimationUtils;
+
+import com.bartoszlipinski.constraint.internal.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.bartoszlipinski.constraint.internal.Utils.getConstraintLayoutParent;
+import static com.bartoszlipinski.constraint.internal.Utils.notNull;
+import static com.bartoszlipinski.constraint.internal.Utils.warning;
+
+/**
+ * Runs staggered animations of several {@link StaggeredAnimationGroup}s placed in the same
+ * {@link ConstraintLayout} as a single transition, so the parent is captured and laid out once.
+ * Transitions of the groups (prepared and cached by the groups themselves) are merged, with start
+ * delays offset per group. Groups are always animated with transitions, regardless of their
+ * {@link StaggeredAnimationGroup.StaggerEngine}. Groups with animations disabled (by the group itself
+ * or by the system) are switched right away, like their own show()/hide() does.
+ */
+public final class StaggeredAnimationCoordinator {
+
+    private static final long SEQUENTIAL = -1;
+
+    @VisibleForTesting final List<StaggeredAnimationGroup> groups = new ArrayList<>();
+    @VisibleForTesting final List<Long> startOffsets = new ArrayList<>();
+
+    private final Transition[] preparedTransitions = new Transition[4];
+    private final Transition[][] preparedFrom = new Transition[4][];
+    private Transition[] groupTransitions = new Transition[0];
+
+    /**
+     * Adds {@code group}, which starts {@code startOffset} milliseconds after the coordinated
+     * animation starts (so it may overlap with other groups).
+     */
+    public void addGroup(@NonNull StaggeredAnimationGroup group, long startOffset) {
+        Preconditions.checkNotNull(group, "group==null");
+        if (startOffset < 0) {
+            throw new IllegalArgumentException("startOffset < 0");
+        }
+        groups.add(group);
+        startOffsets.add(startOffset);
+        invalidatePreparedTransitions();
+    }
+
+    /**
+     * Adds {@code group}, which starts right after the previously added group finishes.
+     */
+    public void addGroupSequentially(@NonNull StaggeredAnimationGroup group) {
+        Preconditions.checkNotNull(group, "group==null");
+        groups.add(group);
+        startOffsets.add(SEQUENTIAL);
+        invalidatePreparedTransitions();
+    }
+
+    public void clearGroups() {
+        groups.clear();
+        startOffsets.clear();
+        invalidatePreparedTransitions();
+    }
+
+    public void show() {
+        show(false);
+    }
+
+    public void show(boolean inReversedOrder) {
+        runStaggeredAnimation(true, inReversedOrder);
+    }
+
+    public void hide() {
+        hide(false);
+    }
+
+    public void hide(boolean inReversedOrder) {
+        runStaggeredAnimation(false, inReversedOrder);
+    }
+
+    private void runStaggeredAnimation(boolean isShowing, boolean inReversedOrder) {
+        if (groups.isEmpty()) {
+            return;
+        }
+        ConstraintLayout parent = getConstraintLayoutParent(groups.get(0));
+        if (!notNull(parent)) {
+            return;
+        }
+        for (int i = 1; i < groups.size(); i++) {
+            if (getConstraintLayoutParent(groups.get(i)) != parent) {
+                warning("All groups in StaggeredAnimationCoordinator have to share the same parent.");
+                return;
+            }
+        }
+        boolean hasAnimatedGroups = false;
+        for (int i = 0; i < groups.size(); i++) {
+            StaggeredAnimationGroup group = groups.get(i);
+            if (!group.shouldAnimate()) {
+                // switched before the transition captures its start values, so it's left out of it
+                group.skipStaggeredAnimation(isShowing);
+                continue;
+            }
+            hasAnimatedGroups = true;
+            group.beginStaggerRun();
+            if (group.cullingEnabled) {
+                group.cullViews(isShowing);
+            }
+        }
+        if (!hasAnimatedGroups) {
+            return;
+        }
+        Transition transition = obtainStaggeredTransition(isShowing, inReversedOrder);
+        TransitionManager.beginDelayedTransition(parent, transition);
+        long now = AnimationUtils.currentAnimationTimeMillis();
+        long previousEnd = 0;
+        for (int i = 0; i < groups.size(); i++) {
+            StaggeredAnimationGroup group = groups.get(i);
+            if (groupTransitions[i] != null) {
+                long startOffset = getStartOffset(i, previousEnd);
+                group.recordCoordinatedRun(isShowing, inReversedOrder, now + startOffset);
+                previousEnd = startOffset + group.computeTotalDuration();
+            }
+            group.applyVisibility(isShowing);
+        }
+    }
+
+    @VisibleForTesting
+    Transition obtainStaggeredTransition(boolean isShowing, boolean inReversedOrder) {
+        int count = groups.size();
+        if (groupTransitions.length != count) {
+            groupTransitions = new Transition[count];
+        }
+        for (int i = 0; i < count; i++) {
+            StaggeredAnimationGroup group = groups.get(i);
+            // null for the groups that are not animated (see StaggeredAnimationGroup#shouldAnimate())
+            groupTransitions[i] = group.shouldAnimate()
+                    ? group.obtainStaggeredTransition(isShowing, inReversedOrder)
+                    : null;
+        }
+        int index = StaggeredAnimationGroup.preparedTransitionIndex(isShowing, inReversedOrder);
+        if (preparedTransitions[index] == null || !Arrays.equals(preparedFrom[index], groupTransitions)) {
+            preparedTransitions[index] = prepareStaggeredTransition(groupTransitions);
+            preparedFrom[index] = groupTransitions.clone();
+        }
+        return preparedTransitions[index];
+    }
+
+    private Transition prepareStaggeredTransition(Transition[] groupTransitions) {
+        TransitionSet staggeredTransition = new TransitionSet();
+        if (isScopedCaptureEnabled()) {
+            for (int i = 0; i < groups.size(); i++) {
+                if (groupTransitions[i] != null) {
+                    StaggeredAnimationGroup group = groups.get(i);
+                    int[] ids = group.getNonZeroIds();
+                    group.scopeCaptureToIds(staggeredTransition, ids, ids.length);
+                }
+            }
+        }
+        long previousEnd = 0;
+        for (int i = 0; i < groups.size(); i++) {
+            if (groupTransitions[i] == null) {
+                continue;
+            }
+            StaggeredAnimationGroup group = groups.get(i);
+            long startOffset = getStartOffset(i, previousEnd);
+            Transition groupTransition = groupTransitions[i].clone();
+            offsetStartDelays(groupTransition, startOffset);
+            staggeredTransition.addTransition(groupTransition);
+            previousEnd = startOffset + group.computeTotalDuration();
+        }
+        return staggeredTransition;
+    }
+
+    private long getStartOffset(int index, long previousEnd) {
+        long startOffset = startOffsets.get(index);
+        return startOffset == SEQUENTIAL ? previousEnd : startOffset;
+    }
+
+    private boolean isScopedCaptureEnabled() {
+        for (int i = 0; i < groups.size(); i++) {
+            if (!groups.get(i).scopedCaptureEnabled) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Offsets start delays of all the leaf transitions, so the offset doesn't depend on how a nested
+     * {@link TransitionSet} treats its own start delay.
+     */
+    @VisibleForTesting
+    static void offsetStartDelays(Transition transition, long offset) {
+        if (transition instanceof TransitionSet) {
+            TransitionSet set = (TransitionSet) transition;
+            for (int i = 0; i < set.getTransitionCount(); i++) {
+                offsetStartDelays(set.getTransitionAt(i), offset);
+            }
+        } else {
+            transition.setStartDelay(Math.max(0, transition.getStartDelay()) + offset);
+        }
+    }
+
+    public void invalidatePreparedTransitions() {
+        Arrays.fill(preparedTransitions, null);
+        Arrays.fill(preparedFrom, null);
+    }
+}
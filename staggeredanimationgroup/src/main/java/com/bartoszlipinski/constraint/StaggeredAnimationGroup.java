@@ -17,7 +17,13 @@ package com.bartoszlipinski.constraint;
 
 import android.animation.TimeInterpolator;
 import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Rect;
+import android.os.Build;
+import android.support.annotation.FloatRange;
+import android.support.annotation.IntDef;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.support.constraint.ConstraintLayout;
 import android.support.constraint.Group;
@@ -25,20 +31,78 @@ import android.support.transition.Fade;
 import android.support.transition.Transition;
 import android.support.transition.TransitionManager;
 import android.support.transition.TransitionSet;
+import android.support.v4.os.TraceCompat;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.view.animation.FastOutSlowInInterpolator;
 import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.view.Gravity;
 import android.view.View;
+import android.view.WindowManager;
+import android.view.animation.AnimationUtils;
 
+import com.bartoszlipinski.constraint.internal.AsyncTrace;
+import com.bartoszlipinski.constraint.internal.Ids;
 import com.bartoszlipinski.constraint.internal.Preconditions;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
 import static com.bartoszlipinski.constraint.internal.Utils.getConstraintLayoutParent;
+import static com.bartoszlipinski.constraint.internal.Utils.isAnimatorDurationScaleZero;
+import static com.bartoszlipinski.constraint.internal.Utils.isPowerSaveMode;
 import static com.bartoszlipinski.constraint.internal.Utils.notNull;
+import static com.bartoszlipinski.constraint.internal.Utils.sortIndicesByKeys;
 
 public class StaggeredAnimationGroup extends Group {
 
+    /**
+     * Default engine. Creates one partial {@link Transition} per referenced view and runs them through
+     * {@link TransitionManager}.
+     */
+    public static final int ENGINE_TRANSITIONS = 0;
+    /**
+     * Drives the whole group from a single animator, fading views in/out according to their index in
+     * the stagger. Much cheaper for large groups, but {@link PartialTransitionFactory} and
+     * {@link OnTransitionPreparedListener} are not used. Falls back to {@link #ENGINE_TRANSITIONS}
+     * below API 14.
+     */
+    public static final int ENGINE_ANIMATOR = 1;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({ENGINE_TRANSITIONS, ENGINE_ANIMATOR})
+    public @interface StaggerEngine {
+    }
+
+    /**
+     * Default mode. Hidden views are {@link View#GONE}, so the parent {@link ConstraintLayout} has to
+     * solve its constraints again whenever the group is shown or hidden.
+     */
+    public static final int HIDE_MODE_GONE = 0;
+    /**
+     * Hidden views are {@link View#INVISIBLE} and keep their place in the layout. Showing or hiding
+     * the group doesn't request a layout pass, which suits groups that no sibling depends on
+     * (e.g. overlays).
+     */
+    public static final int HIDE_MODE_INVISIBLE = 1;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({HIDE_MODE_GONE, HIDE_MODE_INVISIBLE})
+    public @interface HideMode {
+    }
+
     @VisibleForTesting static final int DEFAULT_PARTIAL_DURATION = 250;
     @VisibleForTesting static final int DEFAULT_PARTIAL_TRANSITION_DELAY = 50;
     @VisibleForTesting static final TimeInterpolator DEFAULT_PARTIAL_INTERPOLATOR = new FastOutSlowInInterpolator();
+    public static final int NO_MAX_TOTAL_DURATION = StaggerTimeline.NO_MAX_TOTAL_DURATION;
+    @VisibleForTesting static final String TRACE_PREPARE_STAGGERED_TRANSITION =
+            "StaggeredAnimationGroup#prepareStaggeredTransition";
+    @VisibleForTesting static final String TRACE_PREPARE_PARTIAL_TRANSITION =
+            "StaggeredAnimationGroup#preparePartialTransition";
+    @VisibleForTesting static final String TRACE_BEGIN_DELAYED_TRANSITION =
+            "StaggeredAnimationGroup#beginDelayedTransition";
     @VisibleForTesting static PartialTransitionFactory defaultPartialTransitionFactory =
             new PartialTransitionFactory() {
                 @NonNull
@@ -59,12 +123,120 @@ public class StaggeredAnimationGroup extends Group {
                     return transitionSet;
                 }
             };
+    @VisibleForTesting static StaggerListener defaultStaggerListener =
+            new StaggerListener() {
+                @Override
+                public void onStaggerStart(boolean show) {
+                    // nothing to do here
+                }
+
+                @Override
+                public void onPartialEnd(int viewId, int indexInTransition) {
+                    // nothing to do here
+                }
+
+                @Override
+                public void onStaggerEnd(boolean show, boolean cancelled) {
+                    // nothing to do here
+                }
+            };
+    @VisibleForTesting static StaggerBatching defaultStaggerBatching =
+            new StaggerBatching() {
+                @Override
+                public int getBatchKey(@Nullable View view, int indexInGroup) {
+                    return indexInGroup;
+                }
+            };
+    @VisibleForTesting static StaggerOrder defaultStaggerOrder =
+            new StaggerOrder() {
+                @Override
+                public double getOrderKey(@NonNull View view, int indexInGroup) {
+                    return indexInGroup;
+                }
+            };
 
     @VisibleForTesting int partialDelay = DEFAULT_PARTIAL_TRANSITION_DELAY;
     @VisibleForTesting int partialDuration = DEFAULT_PARTIAL_DURATION;
     @VisibleForTesting TimeInterpolator partialInterpolator = DEFAULT_PARTIAL_INTERPOLATOR;
+    @VisibleForTesting boolean interpolatorSamplingEnabled = false;
+    @VisibleForTesting int maxTotalDuration = NO_MAX_TOTAL_DURATION;
+    @VisibleForTesting TimeInterpolator maxTotalDurationCurve = null;
     @VisibleForTesting PartialTransitionFactory partialTransitionFactory = defaultPartialTransitionFactory;
     @VisibleForTesting OnTransitionPreparedListener onPreparedListener = defaultOnPreparedListener;
+    @VisibleForTesting StaggerOrder staggerOrder = defaultStaggerOrder;
+    @VisibleForTesting StaggerBatching staggerBatching = defaultStaggerBatching;
+    /**
+     * Linear {@code indexInTransition * partialDelay} delays, compressed to fit within
+     * {@link #setMaxTotalDuration(int)}. Not static, as it uses the params of the group.
+     */
+    @VisibleForTesting final StaggerDelayProvider defaultStaggerDelayProvider =
+            new StaggerDelayProvider() {
+                @Override
+                public long getStartDelay(int viewId, int indexInTransition, int count) {
+                    return computeStartDelay(indexInTransition, count);
+                }
+            };
+    @VisibleForTesting StaggerDelayProvider staggerDelayProvider = defaultStaggerDelayProvider;
+    @VisibleForTesting StaggerListener staggerListener = defaultStaggerListener;
+
+    @VisibleForTesting @StaggerEngine int staggerEngine = ENGINE_TRANSITIONS;
+    @VisibleForTesting @HideMode int hideMode = HIDE_MODE_GONE;
+    @VisibleForTesting boolean scopedCaptureEnabled = false;
+    @VisibleForTesting boolean interruptible = false;
+    @VisibleForTesting boolean coalescingEnabled = false;
+    @VisibleForTesting boolean animationsEnabled = true;
+    @VisibleForTesting boolean hardwareLayersEnabled = false;
+    @VisibleForTesting boolean tracingEnabled = false;
+
+    @VisibleForTesting final TransitionSet[] preparedTransitions = new TransitionSet[4];
+    private int[] nonZeroIdsSource;
+    private int[] nonZeroIds;
+    private int[] order = new int[0];
+    private int[] computedOrder = new int[0];
+    private double[] orderKeys = new double[0];
+    private double[] sortedOrderKeys = new double[0];
+    private Integer[] sortedIndices = new Integer[0];
+    private boolean hasSortedOrderKeys;
+    @VisibleForTesting boolean orderDirty = true;
+    private final SparseArray<View> resolvedViews = new SparseArray<View>();
+    private int resolvedChildCount;
+    @VisibleForTesting boolean viewsDirty = true;
+    private int[] batchSteps = new int[0];
+    private int[] computedBatchSteps = new int[0];
+    private int batchCount;
+    @VisibleForTesting boolean batchesDirty = true;
+    private long[] forwardStartDelays = new long[0];
+    private long[] reversedStartDelays = new long[0];
+    @VisibleForTesting boolean forwardStartDelaysDirty = true;
+    @VisibleForTesting boolean reversedStartDelaysDirty = true;
+    @VisibleForTesting boolean cullingEnabled;
+    private int[] culledOrder = new int[0];
+    private int[] computedCulledOrder = new int[0];
+    @VisibleForTesting boolean hasCulledViews;
+    private final Rect visibleRect = new Rect();
+    @VisibleForTesting final HardwareLayers hardwareLayers = new HardwareLayers();
+    private AnimatorStaggerEngine animatorEngine;
+    @VisibleForTesting OnStaggerFrameMetricsListener frameMetricsListener;
+    private FrameMetricsTracker frameMetricsTracker;
+    @VisibleForTesting int staggerRun;
+    private long transitionsEndTime;
+    @VisibleForTesting final InFlightStagger inFlightStagger = new InFlightStagger();
+    @VisibleForTesting boolean hasPendingRequest;
+    @VisibleForTesting boolean pendingShowing;
+    @VisibleForTesting boolean pendingInReversedOrder;
+    private final Runnable pendingRequestRunnable = new Runnable() {
+        @Override
+        public void run() {
+            runPendingRequest();
+        }
+    };
+    @VisibleForTesting String staggerTraceName;
+    private final Runnable endStaggerTraceRunnable = new Runnable() {
+        @Override
+        public void run() {
+            endStaggerTrace();
+        }
+    };
 
     public StaggeredAnimationGroup(Context context) {
         super(context);
@@ -72,74 +244,643 @@ public class StaggeredAnimationGroup extends Group {
 
     public StaggeredAnimationGroup(Context context, AttributeSet attrs) {
         super(context, attrs);
+        readAttributes(attrs, 0);
     }
 
     public StaggeredAnimationGroup(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
+        readAttributes(attrs, defStyleAttr);
+    }
+
+    // Can't be done in init(AttributeSet), because it's called before fields of this class are initialized
+    private void readAttributes(AttributeSet attrs, int defStyleAttr) {
+        if (attrs == null) {
+            return;
+        }
+        TypedArray a = getContext().obtainStyledAttributes(
+                attrs, R.styleable.StaggeredAnimationGroup, defStyleAttr, 0);
+        try {
+            maxTotalDuration = a.getInt(
+                    R.styleable.StaggeredAnimationGroup_staggered_maxTotalDuration, NO_MAX_TOTAL_DURATION);
+            hideMode = a.getInt(R.styleable.StaggeredAnimationGroup_staggered_hideMode, HIDE_MODE_GONE);
+            int partialEffect = a.getInt(R.styleable.StaggeredAnimationGroup_staggered_partialEffect, 0);
+            if (partialEffect != 0) {
+                partialTransitionFactory = StaggerEffects.of(partialEffect,
+                        a.getInt(R.styleable.StaggeredAnimationGroup_staggered_slideEdge, Gravity.BOTTOM));
+            }
+        } finally {
+            a.recycle();
+        }
     }
 
     @VisibleForTesting
     final int[] filterNonZeroIds(int[] allIds) {
-        int nonZeroIdsCount = 0;
-        for (int id : allIds) {
-            if (id != 0) {
-                nonZeroIdsCount++;
+        return Ids.filterNonZeroIds(allIds);
+    }
+
+    @VisibleForTesting
+    final int[] getNonZeroIds() {
+        if (!Arrays.equals(nonZeroIdsSource, mIds)) {
+            nonZeroIdsSource = mIds.clone();
+            nonZeroIds = filterNonZeroIds(nonZeroIdsSource);
+            resolvedViews.clear();
+            viewsDirty = true;
+            orderDirty = true;
+            hasCulledViews = false;
+            batchesDirty = true;
+            invalidatePreparedTransitions();
+        }
+        return nonZeroIds;
+    }
+
+    /**
+     * Returns the referenced view with the given id, resolved in the parent once and again only when
+     * the referenced ids or children of the parent change. {@code null} if the view can't be found.
+     */
+    @Nullable
+    @VisibleForTesting
+    final View resolveView(int viewId) {
+        resolveViews();
+        return resolvedViews.get(viewId);
+    }
+
+    /**
+     * Same as {@link #resolveView(int)}, but without checking the referenced ids again. For loops
+     * over all the views, which call {@link #resolveViews()} once before.
+     */
+    @Nullable
+    final View getResolvedView(int viewId) {
+        return resolvedViews.get(viewId);
+    }
+
+    private void resolveViews() {
+        int[] ids = getNonZeroIds();
+        if (viewsDirty) {
+            viewsDirty = false;
+            // not warned about here, runs without a parent are warned about (once) where they start
+            ConstraintLayout parent = getConstraintLayoutParent(this);
+            resolvedChildCount = parent != null ? parent.getChildCount() : 0;
+            boolean changed = false;
+            for (int id : ids) {
+                View view = parent != null ? parent.getViewById(id) : null;
+                if (resolvedViews.get(id) != view) {
+                    if (view == null) {
+                        resolvedViews.remove(id);
+                    } else {
+                        resolvedViews.put(id, view);
+                    }
+                    changed = true;
+                }
+            }
+            if (changed) {
+                invalidatePreparedTransitions();
             }
         }
-        if (nonZeroIdsCount == allIds.length) {
-            return allIds;
+    }
+
+    /**
+     * Partial transitions target views directly, so the transition framework doesn't have to match
+     * ids of all the captured views. Ids are used for views that can't be resolved.
+     */
+    private void addTarget(Transition transition, int viewId) {
+        View view = getResolvedView(viewId);
+        if (view != null) {
+            transition.addTarget(view);
+        } else {
+            transition.addTarget(viewId);
+        }
+    }
+
+    /**
+     * Returns indices (in {@link #getNonZeroIds()}) of the views in the order of the stagger.
+     * The order is computed lazily, at most once per layout pass.
+     */
+    @VisibleForTesting
+    final int[] getOrder() {
+        int[] ids = getNonZeroIds();
+        if (order.length != ids.length) {
+            order = new int[ids.length];
+            computedOrder = new int[ids.length];
+            orderKeys = new double[ids.length];
+            sortedOrderKeys = new double[ids.length];
+            sortedIndices = new Integer[ids.length];
+            hasSortedOrderKeys = false;
+            orderDirty = true;
         }
-        int[] groupIds = new int[nonZeroIdsCount];
-        for (int i = 0; i < nonZeroIdsCount; i++) {
-            groupIds[i] = allIds[i];
+        if (orderDirty) {
+            orderDirty = false;
+            computeOrder(ids);
+            if (!Arrays.equals(order, computedOrder)) {
+                System.arraycopy(computedOrder, 0, order, 0, order.length);
+                hasCulledViews = false;
+                batchesDirty = true;
+                invalidatePreparedTransitions();
+            }
         }
-        return groupIds;
+        return order;
     }
 
+    /**
+     * Custom orders are sorted only when their keys have changed since the last sort, otherwise
+     * {@link #computedOrder} already holds the result.
+     */
+    private void computeOrder(int[] ids) {
+        if (staggerOrder == defaultStaggerOrder) {
+            hasSortedOrderKeys = false;
+            for (int i = 0; i < ids.length; i++) {
+                computedOrder[i] = i;
+            }
+            return;
+        }
+        resolveViews();
+        for (int i = 0; i < ids.length; i++) {
+            View view = getResolvedView(ids[i]);
+            orderKeys[i] = view == null ? Double.MAX_VALUE : staggerOrder.getOrderKey(view, i);
+        }
+        if (hasSortedOrderKeys && Arrays.equals(orderKeys, sortedOrderKeys)) {
+            return;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            sortedIndices[i] = i;
+        }
+        sortIndicesByKeys(sortedIndices, orderKeys);
+        for (int i = 0; i < ids.length; i++) {
+            computedOrder[i] = sortedIndices[i];
+        }
+        System.arraycopy(orderKeys, 0, sortedOrderKeys, 0, orderKeys.length);
+        hasSortedOrderKeys = true;
+    }
+
+    /**
+     * Returns {@link #getOrder()} without the views culled by the last {@link #cullViews(boolean)}.
+     */
     @VisibleForTesting
-    final Transition prepareStaggeredTransition(boolean isShowing, boolean inReversedOrder) {
-        TransitionSet staggeredTransition = new TransitionSet();
-        int[] nonZeroIds = filterNonZeroIds(mIds);
-        if (inReversedOrder) {
-            for (int i = nonZeroIds.length - 1, iteration = 0; i >= 0; i--, iteration++) {
-                int id = nonZeroIds[i];
-                Transition basePartialTransition = preparePartialTransition(isShowing, id, iteration);
-                addTransitionToStaggeredTransition(
-                        basePartialTransition, staggeredTransition, id, iteration);
+    final int[] getStaggeredOrder() {
+        int[] orderedIndices = getOrder();
+        return hasCulledViews ? culledOrder : orderedIndices;
+    }
+
+    /**
+     * Leaves out the views that are outside of the parent's visible rect or already in the target
+     * state. They get the final state right away (with the rest of the group), the remaining views
+     * are staggered without gaps. Has to be called before every run, as scrolling doesn't cause
+     * a layout pass.
+     */
+    @VisibleForTesting
+    final void cullViews(boolean isShowing) {
+        int[] ids = getNonZeroIds();
+        int[] orderedIndices = getOrder();
+        if (computedCulledOrder.length != orderedIndices.length) {
+            computedCulledOrder = new int[orderedIndices.length];
+        }
+        ConstraintLayout parent = getConstraintLayoutParent(this);
+        boolean hasVisibleRect = parent != null && parent.getLocalVisibleRect(visibleRect);
+        resolveViews();
+        int staggeredCount = 0;
+        for (int index : orderedIndices) {
+            if (!isCulled(getResolvedView(ids[index]), isShowing, hasVisibleRect)) {
+                computedCulledOrder[staggeredCount++] = index;
+            }
+        }
+        boolean culls = staggeredCount < orderedIndices.length;
+        if (culls != hasCulledViews || (culls && !isCulledOrder(computedCulledOrder, staggeredCount))) {
+            if (culls) {
+                culledOrder = Arrays.copyOf(computedCulledOrder, staggeredCount);
+            }
+            hasCulledViews = culls;
+            batchesDirty = true;
+            invalidatePreparedTransitions();
+        }
+    }
+
+    /**
+     * Brings back the views culled by the last {@link #cullViews(boolean)}.
+     */
+    private void resetCulling() {
+        if (hasCulledViews) {
+            hasCulledViews = false;
+            batchesDirty = true;
+            invalidatePreparedTransitions();
+        }
+    }
+
+    private boolean isCulled(View view, boolean isShowing, boolean hasVisibleRect) {
+        if (view == null) {
+            return false;
+        }
+        boolean isInTargetState = isShowing
+                ? getVisibility() == View.VISIBLE && view.getVisibility() == View.VISIBLE
+                : view.getVisibility() != View.VISIBLE;
+        // inclusive, so that views laid out as points (GONE) are checked by their position
+        boolean isOnScreen = hasVisibleRect
+                && view.getRight() >= visibleRect.left && view.getLeft() <= visibleRect.right
+                && view.getBottom() >= visibleRect.top && view.getTop() <= visibleRect.bottom;
+        return isInTargetState || !isOnScreen;
+    }
+
+    private boolean isCulledOrder(int[] orderedIndices, int count) {
+        if (culledOrder.length != count) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (culledOrder[i] != orderedIndices[i]) {
+                return false;
             }
+        }
+        return true;
+    }
+
+    /**
+     * Returns index of the batch (step of the stagger) for every view in the order of the stagger.
+     * Computed lazily, at most once per layout pass.
+     */
+    @VisibleForTesting
+    final int[] getBatchSteps() {
+        int[] orderedIndices = getStaggeredOrder();
+        int count = orderedIndices.length;
+        if (batchSteps.length != count) {
+            batchSteps = new int[count];
+            computedBatchSteps = new int[count];
+            batchesDirty = true;
+        }
+        if (batchesDirty) {
+            batchesDirty = false;
+            batchCount = computeBatchSteps(getNonZeroIds(), orderedIndices);
+            if (!Arrays.equals(batchSteps, computedBatchSteps)) {
+                System.arraycopy(computedBatchSteps, 0, batchSteps, 0, count);
+                invalidatePreparedTransitions();
+            }
+        }
+        return batchSteps;
+    }
+
+    private int computeBatchSteps(int[] ids, int[] orderedIndices) {
+        boolean resolveViews = staggerBatching != defaultStaggerBatching;
+        if (resolveViews) {
+            resolveViews();
+        }
+        int step = -1;
+        int previousKey = 0;
+        for (int iteration = 0; iteration < orderedIndices.length; iteration++) {
+            View view = resolveViews ? getResolvedView(ids[orderedIndices[iteration]]) : null;
+            int key = staggerBatching.getBatchKey(view, iteration);
+            if (iteration == 0 || key != previousKey) {
+                step++;
+            }
+            computedBatchSteps[iteration] = step;
+            previousKey = key;
+        }
+        return step + 1;
+    }
+
+    @VisibleForTesting
+    final int getBatchCount() {
+        getBatchSteps();
+        return batchCount;
+    }
+
+    @VisibleForTesting
+    final int getBatchStep(int iteration, boolean inReversedOrder) {
+        return getBatchStep(getBatchSteps(), iteration, inReversedOrder);
+    }
+
+    /**
+     * Per-iteration lookup in {@code steps} returned from {@link #getBatchSteps()}, without
+     * validating them again.
+     */
+    private int getBatchStep(int[] steps, int iteration, boolean inReversedOrder) {
+        return inReversedOrder ? batchCount - 1 - steps[steps.length - 1 - iteration] : steps[iteration];
+    }
+
+    @VisibleForTesting
+    final long computeIterationStartDelay(int iteration, boolean inReversedOrder) {
+        return getStartDelays(inReversedOrder)[getBatchStep(iteration, inReversedOrder)];
+    }
+
+    /**
+     * Fills {@code startDelays} with the start delay of every view, in the order of the stagger.
+     * The ids, order and batches are validated once, not per view.
+     */
+    final void fillIterationStartDelays(long[] startDelays, boolean inReversedOrder) {
+        long[] stepStartDelays = getStartDelays(inReversedOrder);
+        int[] steps = getBatchSteps();
+        for (int iteration = 0; iteration < steps.length; iteration++) {
+            startDelays[iteration] = stepStartDelays[getBatchStep(steps, iteration, inReversedOrder)];
+        }
+    }
+
+    /**
+     * Returns start delay of every step of the stagger, never decreasing from one step to the next.
+     * Computed once and reused until the referenced ids, order, batches or any of the timing params
+     * change.
+     */
+    @VisibleForTesting
+    final long[] getStartDelays(boolean inReversedOrder) {
+        int batchCount = getBatchCount();
+        long[] startDelays = inReversedOrder ? reversedStartDelays : forwardStartDelays;
+        boolean dirty = inReversedOrder ? reversedStartDelaysDirty : forwardStartDelaysDirty;
+        if (startDelays.length != batchCount) {
+            startDelays = new long[batchCount];
+            dirty = true;
+        }
+        if (dirty) {
+            int[] ids = getNonZeroIds();
+            int[] orderedIndices = getStaggeredOrder();
+            int[] steps = getBatchSteps();
+            int count = orderedIndices.length;
+            int previousStep = -1;
+            long previousStartDelay = 0;
+            for (int iteration = 0; iteration < count; iteration++) {
+                int step = getBatchStep(steps, iteration, inReversedOrder);
+                if (step != previousStep) {
+                    int id = ids[orderedIndices[inReversedOrder ? count - 1 - iteration : iteration]];
+                    // a step never starts before the previous one, see StaggerDelayProvider
+                    previousStartDelay = Math.max(previousStartDelay, computeStartDelay(id, step, batchCount));
+                    startDelays[step] = previousStartDelay;
+                    previousStep = step;
+                }
+            }
+        }
+        if (inReversedOrder) {
+            reversedStartDelays = startDelays;
+            reversedStartDelaysDirty = false;
         } else {
-            for (int iteration = 0; iteration < nonZeroIds.length; iteration++) {
-                int id = nonZeroIds[iteration];
-                Transition basePartialTransition = preparePartialTransition(isShowing, id, iteration);
-                addTransitionToStaggeredTransition(
-                        basePartialTransition, staggeredTransition, id, iteration);
+            forwardStartDelays = startDelays;
+            forwardStartDelaysDirty = false;
+        }
+        return startDelays;
+    }
+
+    @Override
+    public void updatePostLayout(ConstraintLayout container) {
+        super.updatePostLayout(container);
+        if (!viewsDirty && haveReferencedViewsChanged(container)) {
+            viewsDirty = true;
+        }
+        if (staggerOrder != defaultStaggerOrder) {
+            orderDirty = true;
+        }
+        if (staggerBatching != defaultStaggerBatching) {
+            batchesDirty = true;
+        }
+    }
+
+    /**
+     * Runs after every layout pass (which every toggle in {@link #HIDE_MODE_GONE} causes), so it only
+     * checks whether views were added to or removed from the parent, or had their ids changed, instead
+     * of resolving all of them again.
+     */
+    private boolean haveReferencedViewsChanged(ConstraintLayout container) {
+        if (container.getChildCount() != resolvedChildCount || resolvedViews.size() != nonZeroIds.length) {
+            return true;
+        }
+        for (int i = 0; i < resolvedViews.size(); i++) {
+            View view = resolvedViews.valueAt(i);
+            if (view.getParent() != container || view.getId() != resolvedViews.keyAt(i)) {
+                return true;
             }
         }
+        return false;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        releaseStaggeredAnimation();
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * Ends whatever is still running (or requested) in its final state and drops everything that
+     * references views or objects created by the user's factories, so that a detached group doesn't
+     * keep its Activity alive through running animators. Configuration of the group is kept, caches
+     * are rebuilt when the group is animated again.
+     */
+    @VisibleForTesting
+    final void releaseStaggeredAnimation() {
+        if (hasPendingRequest) {
+            hasPendingRequest = false;
+            removeCallbacks(pendingRequestRunnable);
+            applyVisibility(pendingShowing);
+        }
+        if (animatorEngine != null) {
+            animatorEngine.cancel();
+            animatorEngine = null;
+        }
+        // the transition ended below is reported as cancelled
+        beginStaggerRun();
+        ConstraintLayout parent = getConstraintLayoutParent(this);
+        if (parent != null && AnimationUtils.currentAnimationTimeMillis() < transitionsEndTime) {
+            // also ends other transitions running in the parent, there's no way to end only ours
+            TransitionManager.endTransitions(parent);
+        }
+        transitionsEndTime = 0;
+        inFlightStagger.clear();
+        if (frameMetricsTracker != null) {
+            frameMetricsTracker.stop();
+            frameMetricsTracker = null;
+        }
+        endStaggerTrace();
+        invalidatePreparedTransitions();
+        resolvedViews.clear();
+        viewsDirty = true;
+    }
+
+    /**
+     * Returns the cached staggered transition, or a fresh clone of it when it needs per-run
+     * listeners or an {@link OnTransitionPreparedListener} is set. Clones of a transition share its
+     * listeners (and the transition framework adds its own ones to the clones it runs), so the
+     * cached instance has to stay free of listeners.
+     */
+    @VisibleForTesting
+    final Transition obtainStaggeredTransition(boolean isShowing, boolean inReversedOrder) {
+        TransitionSet preparedTransition = obtainPreparedTransition(isShowing, inReversedOrder);
+        boolean hasStaggerListener = staggerListener != defaultStaggerListener;
+        boolean useHardwareLayers = shouldUseHardwareLayers();
+        if (!hasStaggerListener && !useHardwareLayers && onPreparedListener == defaultOnPreparedListener) {
+            return preparedTransition;
+        }
+        TransitionSet staggeredTransition = (TransitionSet) preparedTransition.clone();
+        if (hasStaggerListener || useHardwareLayers) {
+            addRunListeners(staggeredTransition, isShowing, inReversedOrder, hasStaggerListener);
+        }
         return onStaggeredTransitionReady(staggeredTransition, isShowing, inReversedOrder);
     }
 
+    private void addRunListeners(TransitionSet staggeredTransition, boolean isShowing, boolean inReversedOrder,
+                                 boolean hasStaggerListener) {
+        if (hasStaggerListener) {
+            staggeredTransition.addListener(new StaggerTransitionListener(this, isShowing, staggerRun));
+        }
+        int[] nonZeroIds = getNonZeroIds();
+        int[] orderedIndices = getStaggeredOrder();
+        int[] steps = getBatchSteps();
+        int count = orderedIndices.length;
+        for (int iteration = 0; iteration < count; iteration++) {
+            int id = nonZeroIds[orderedIndices[inReversedOrder ? count - 1 - iteration : iteration]];
+            int step = getBatchStep(steps, iteration, inReversedOrder);
+            Transition partialTransition = staggeredTransition.getTransitionAt(step);
+            if (hasStaggerListener) {
+                partialTransition.addListener(new PartialTransitionListener(this, id, step));
+            }
+            addHardwareLayerListener(partialTransition, id);
+        }
+    }
+
+    @VisibleForTesting
+    final TransitionSet obtainPreparedTransition(boolean isShowing, boolean inReversedOrder) {
+        resolveViews();
+        getBatchSteps();
+        int index = preparedTransitionIndex(isShowing, inReversedOrder);
+        TransitionSet transition = preparedTransitions[index];
+        if (transition == null) {
+            transition = prepareStaggeredTransition(isShowing, inReversedOrder);
+            preparedTransitions[index] = transition;
+        }
+        return transition;
+    }
+
+    @VisibleForTesting
+    static int preparedTransitionIndex(boolean isShowing, boolean inReversedOrder) {
+        return (isShowing ? 2 : 0) + (inReversedOrder ? 1 : 0);
+    }
+
+    @VisibleForTesting
+    final TransitionSet prepareStaggeredTransition(boolean isShowing, boolean inReversedOrder) {
+        boolean traced = beginTraceSection(TRACE_PREPARE_STAGGERED_TRANSITION);
+        try {
+            TransitionSet staggeredTransition = new TransitionSet();
+            int[] nonZeroIds = getNonZeroIds();
+            int[] orderedIndices = getStaggeredOrder();
+            int[] steps = getBatchSteps();
+            int count = orderedIndices.length;
+            resolveViews();
+            if (scopedCaptureEnabled) {
+                scopeCaptureToIds(staggeredTransition, nonZeroIds, nonZeroIds.length);
+            }
+            long[] startDelays = getStartDelays(inReversedOrder);
+            int currentStep = -1;
+            Transition partialTransition = null;
+            for (int iteration = 0; iteration < count; iteration++) {
+                int id = nonZeroIds[orderedIndices[inReversedOrder ? count - 1 - iteration : iteration]];
+                int step = getBatchStep(steps, iteration, inReversedOrder);
+                if (step != currentStep) {
+                    currentStep = step;
+                    Transition basePartialTransition = preparePartialTransition(isShowing, id, step);
+                    partialTransition = addTransitionToStaggeredTransition(
+                            basePartialTransition, staggeredTransition, id, startDelays[step]);
+                } else {
+                    addTargetToPartialTransition(partialTransition, id);
+                }
+            }
+            return staggeredTransition;
+        } finally {
+            endTraceSection(traced);
+        }
+    }
+
+    /**
+     * Targets set on a {@link TransitionSet} are propagated only to the transitions that are already
+     * added to it, so this has to be called while the set is still empty. Partial transitions keep
+     * their own targets, i.e. all the views of their batch.
+     */
     @VisibleForTesting
-    final void addTransitionToStaggeredTransition(Transition basePartialTransition,
-                                                  TransitionSet staggeredTransition,
-                                                  int viewId, int indexInTransition) {
+    final void scopeCaptureToIds(TransitionSet staggeredTransition, int[] ids, int count) {
+        resolveViews();
+        for (int i = 0; i < count; i++) {
+            addTarget(staggeredTransition, ids[i]);
+        }
+    }
+
+    @VisibleForTesting
+    final Transition addTransitionToStaggeredTransition(Transition basePartialTransition,
+                                                        TransitionSet staggeredTransition,
+                                                        int viewId, long startDelay) {
         Transition partialTransition =
-                applyStaggeredTransitionParams(basePartialTransition, viewId, indexInTransition);
+                applyStaggeredTransitionParams(basePartialTransition, viewId, startDelay);
         staggeredTransition.addTransition(partialTransition);
+        return partialTransition;
     }
 
+    /**
+     * Adds another view of the same batch to an already prepared partial transition.
+     */
     @VisibleForTesting
-    final Transition applyStaggeredTransitionParams(Transition partialTransition,
-                                                    int viewId, int indexInTransition) {
-        partialTransition.setStartDelay(indexInTransition * partialDelay);
-        partialTransition.addTarget(viewId);
+    final void addTargetToPartialTransition(Transition partialTransition, int viewId) {
+        addTarget(partialTransition, viewId);
+    }
+
+    private void addHardwareLayerListener(Transition partialTransition, int viewId) {
+        if (shouldUseHardwareLayers()) {
+            View view = getResolvedView(viewId);
+            if (view != null) {
+                partialTransition.addListener(new HardwareLayerListener(view, hardwareLayers));
+            }
+        }
+    }
+
+    final boolean shouldUseHardwareLayers() {
+        return hardwareLayersEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+    }
+
+    private Transition applyStaggeredTransitionParams(Transition partialTransition, int viewId, long startDelay) {
+        partialTransition.setStartDelay(startDelay);
+        addTarget(partialTransition, viewId);
         return partialTransition;
     }
 
+    /**
+     * Start delay from the {@link StaggerDelayProvider}. Delays of the provider are clamped, so that
+     * the last view finishes within {@link #setMaxTotalDuration(int)}.
+     */
+    @VisibleForTesting
+    final long computeStartDelay(int viewId, int indexInTransition, int count) {
+        long startDelay = Math.max(0, staggerDelayProvider.getStartDelay(viewId, indexInTransition, count));
+        if (maxTotalDuration == NO_MAX_TOTAL_DURATION) {
+            return startDelay;
+        }
+        return Math.min(startDelay, Math.max(0, maxTotalDuration - getEffectivePartialDuration()));
+    }
+
+    @VisibleForTesting
+    final long computeStartDelay(int indexInTransition, int count) {
+        return StaggerTimeline.startDelay(indexInTransition, count, partialDelay,
+                getEffectivePartialDuration(), maxTotalDuration, maxTotalDurationCurve);
+    }
+
+    @VisibleForTesting
+    final long computeTotalDuration() {
+        long[] startDelays = getStartDelays(false);
+        if (startDelays.length == 0) {
+            return 0;
+        }
+        long maxStartDelay = 0;
+        for (long startDelay : startDelays) {
+            maxStartDelay = Math.max(maxStartDelay, startDelay);
+        }
+        return maxStartDelay + getEffectivePartialDuration();
+    }
+
+    @VisibleForTesting
+    final int getEffectivePartialDuration() {
+        return StaggerTimeline.effectivePartialDuration(partialDuration, maxTotalDuration);
+    }
+
     @VisibleForTesting
     final Transition preparePartialTransition(boolean isShowing, int id, int indexInTransition) {
-        return partialTransitionFactory.createPartialTransition(isShowing, id, indexInTransition)
-                .setDuration(partialDuration)
-                .setInterpolator(partialInterpolator);
+        boolean traced = beginTraceSection(TRACE_PREPARE_PARTIAL_TRANSITION);
+        try {
+            return partialTransitionFactory.createPartialTransition(isShowing, id, indexInTransition)
+                    .setDuration(getEffectivePartialDuration())
+                    .setInterpolator(getEffectivePartialInterpolator());
+        } finally {
+            endTraceSection(traced);
+        }
+    }
+
+    final TimeInterpolator getEffectivePartialInterpolator() {
+        return interpolatorSamplingEnabled && partialInterpolator != null
+                ? SampledInterpolator.of(partialInterpolator)
+                : partialInterpolator;
     }
 
     @VisibleForTesting
@@ -152,12 +893,7 @@ public class StaggeredAnimationGroup extends Group {
     }
 
     public final void show(boolean inReversedOrder) {
-        ConstraintLayout parent = getConstraintLayoutParent(this);
-        if (notNull(parent)) {
-            Transition transition = prepareStaggeredTransition(true, inReversedOrder);
-            TransitionManager.beginDelayedTransition(parent, transition);
-            setVisibility(View.VISIBLE);
-        }
+        requestStaggeredAnimation(true, inReversedOrder);
     }
 
     public final void hide() {
@@ -165,23 +901,395 @@ public class StaggeredAnimationGroup extends Group {
     }
 
     public final void hide(boolean inReversedOrder) {
+        requestStaggeredAnimation(false, inReversedOrder);
+    }
+
+    private void requestStaggeredAnimation(boolean isShowing, boolean inReversedOrder) {
+        if (!shouldAnimate()) {
+            skipStaggeredAnimation(isShowing);
+            return;
+        }
+        if (!coalescingEnabled) {
+            runStaggeredAnimation(isShowing, inReversedOrder);
+            return;
+        }
+        pendingShowing = isShowing;
+        pendingInReversedOrder = inReversedOrder;
+        if (!hasPendingRequest) {
+            hasPendingRequest = true;
+            ViewCompat.postOnAnimation(this, pendingRequestRunnable);
+        }
+    }
+
+    @VisibleForTesting
+    final void runPendingRequest() {
+        if (hasPendingRequest) {
+            hasPendingRequest = false;
+            removeCallbacks(pendingRequestRunnable);
+            runStaggeredAnimation(pendingShowing, pendingInReversedOrder);
+        }
+    }
+
+    /**
+     * Shows the group up to {@code progress} (0 - hidden, 1 - shown), e.g. following a drag gesture.
+     * Views are updated directly, using the same timing as {@link #show()}, regardless of the
+     * {@link StaggerEngine}. Finish it with {@link #settleStaggerProgress()} or
+     * {@link #flingStaggerProgress(float)}; {@link #show()} and {@link #hide()} stop it as well.
+     * Progress-driven staggers are not reported to the {@link StaggerListener}.
+     */
+    public final void setStaggerProgress(@FloatRange(from = 0.0, to = 1.0) float progress) {
+        progress = Math.max(0f, Math.min(1f, progress));
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            applyVisibility(progress > 0f);
+            return;
+        }
+        if (hasPendingRequest) {
+            hasPendingRequest = false;
+            removeCallbacks(pendingRequestRunnable);
+        }
+        // all views are seeked, so batches and delays have to be computed for all of them
+        resetCulling();
+        resolveViews();
+        getAnimatorEngine().seek(getNonZeroIds(), getOrder(), progress);
+    }
+
+    /**
+     * Animates the progress-driven stagger to the closer end (shown or hidden).
+     */
+    public final void settleStaggerProgress() {
+        if (isSeekingStaggerProgress()) {
+            animatorEngine.settle(animatorEngine.getSeekProgress() >= 0.5f, -1);
+        }
+    }
+
+    /**
+     * Animates the progress-driven stagger in the direction of {@code velocity} (progress per second,
+     * positive towards shown), no slower than the natural timing of the stagger.
+     */
+    public final void flingStaggerProgress(float velocity) {
+        if (isSeekingStaggerProgress()) {
+            boolean show = velocity > 0f || (velocity == 0f && animatorEngine.getSeekProgress() >= 0.5f);
+            float remainingProgress = show ? 1f - animatorEngine.getSeekProgress() : animatorEngine.getSeekProgress();
+            long maxDuration = velocity == 0f ? -1 : (long) (remainingProgress / Math.abs(velocity) * 1000);
+            animatorEngine.settle(show, maxDuration);
+        }
+    }
+
+    private boolean isSeekingStaggerProgress() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH
+                && animatorEngine != null && animatorEngine.isSeeking();
+    }
+
+    @VisibleForTesting
+    final boolean shouldAnimate() {
+        return animationsEnabled && !areSystemAnimationsDisabled();
+    }
+
+    /**
+     * Attached groups use the settings cached by {@link SystemAnimationSettings}, so the first one
+     * registers for their changes. A detached group isn't on the hot path and reads them directly.
+     */
+    private boolean areSystemAnimationsDisabled() {
+        Context context = getContext();
+        if (ViewCompat.isAttachedToWindow(this)) {
+            return SystemAnimationSettings.get(context).areAnimationsDisabled();
+        }
+        return isAnimatorDurationScaleZero(context) || isPowerSaveMode(context);
+    }
+
+    /**
+     * Switches the group to the final state right away, without preparing any transition.
+     */
+    final void skipStaggeredAnimation(boolean isShowing) {
+        if (hasPendingRequest) {
+            hasPendingRequest = false;
+            removeCallbacks(pendingRequestRunnable);
+        }
+        if (animatorEngine != null) {
+            animatorEngine.cancel();
+        }
+        beginStaggerRun();
+        staggerListener.onStaggerStart(isShowing);
+        applyVisibility(isShowing);
+        staggerListener.onStaggerEnd(isShowing, false);
+    }
+
+    private void runStaggeredAnimation(boolean isShowing, boolean inReversedOrder) {
         ConstraintLayout parent = getConstraintLayoutParent(this);
         if (notNull(parent)) {
-            Transition transition = prepareStaggeredTransition(false, inReversedOrder);
-            TransitionManager.beginDelayedTransition(parent, transition);
-            setVisibility(View.GONE);
+            beginStaggerRun();
+            // referenced ids and views are validated once here, per-view loops below don't check them
+            resolveViews();
+            if (cullingEnabled) {
+                cullViews(isShowing);
+            }
+            if (isAnimatorEngineUsed()) {
+                AnimatorStaggerEngine engine = getAnimatorEngine();
+                if (interruptible && engine.isRunning() && !engine.isSeeking()
+                        && engine.isShowing() != isShowing) {
+                    engine.reverse();
+                } else {
+                    engine.start(getNonZeroIds(), getStaggeredOrder(), isShowing, inReversedOrder);
+                }
+            } else {
+                if (animatorEngine != null) {
+                    animatorEngine.cancel();
+                }
+                Transition transition = interruptible
+                        ? obtainInterruptibleTransition(isShowing, inReversedOrder)
+                        : obtainStaggeredTransition(isShowing, inReversedOrder);
+                boolean traced = beginTraceSection(TRACE_BEGIN_DELAYED_TRANSITION);
+                try {
+                    TransitionManager.beginDelayedTransition(parent, transition);
+                } finally {
+                    endTraceSection(traced);
+                }
+                transitionsEndTime = AnimationUtils.currentAnimationTimeMillis() + computeTotalDuration();
+                applyVisibility(isShowing);
+            }
+            trackFrameMetrics(isShowing);
+            traceStagger(isShowing);
+        }
+    }
+
+    private boolean beginTraceSection(String sectionName) {
+        if (tracingEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            TraceCompat.beginSection(sectionName);
+            return true;
+        }
+        return false;
+    }
+
+    private static void endTraceSection(boolean traced) {
+        if (traced) {
+            TraceCompat.endSection();
+        }
+    }
+
+    /**
+     * Begins an async trace section lasting the expected duration of the whole staggered animation
+     * (or until the next one starts).
+     */
+    private void traceStagger(boolean isShowing) {
+        if (!tracingEnabled) {
+            return;
+        }
+        endStaggerTrace();
+        staggerTraceName = (isShowing ? "show" : "hide") + " StaggeredAnimationGroup id=0x"
+                + Integer.toHexString(getId()) + " members=" + getStaggeredOrder().length;
+        AsyncTrace.beginSection(staggerTraceName, System.identityHashCode(this));
+        postDelayed(endStaggerTraceRunnable, computeTotalDuration());
+    }
+
+    private void endStaggerTrace() {
+        if (staggerTraceName != null) {
+            removeCallbacks(endStaggerTraceRunnable);
+            AsyncTrace.endSection(staggerTraceName, System.identityHashCode(this));
+            staggerTraceName = null;
+        }
+    }
+
+    final int getHiddenVisibility() {
+        return hideMode == HIDE_MODE_INVISIBLE ? View.INVISIBLE : View.GONE;
+    }
+
+    @VisibleForTesting
+    final void applyVisibility(boolean isShowing) {
+        int visibility = isShowing ? View.VISIBLE : getHiddenVisibility();
+        setVisibility(visibility);
+        if (hideMode == HIDE_MODE_INVISIBLE) {
+            // no layout pass is requested, so the group's visibility won't be propagated by the parent
+            int[] ids = getNonZeroIds();
+            resolveViews();
+            for (int id : ids) {
+                View view = getResolvedView(id);
+                if (view != null) {
+                    view.setVisibility(visibility);
+                }
+            }
+        }
+    }
+
+    private Transition obtainInterruptibleTransition(boolean isShowing, boolean inReversedOrder) {
+        long now = AnimationUtils.currentAnimationTimeMillis();
+        if (inFlightStagger.isRunning(now) && inFlightStagger.isShowing != isShowing) {
+            return prepareInterruptingTransition(isShowing, inReversedOrder, now);
+        }
+        Transition transition = obtainStaggeredTransition(isShowing, inReversedOrder);
+        recordInFlightStagger(isShowing, inReversedOrder, now);
+        return transition;
+    }
+
+    @VisibleForTesting
+    final void recordInFlightStagger(boolean isShowing, boolean inReversedOrder, long now) {
+        int[] nonZeroIds = getNonZeroIds();
+        int[] orderedIndices = getStaggeredOrder();
+        int count = orderedIndices.length;
+        int partialDuration = getEffectivePartialDuration();
+        inFlightStagger.ensureCapacity(count);
+        fillIterationStartDelays(inFlightStagger.timeline.startDelays, inReversedOrder);
+        for (int iteration = 0; iteration < count; iteration++) {
+            inFlightStagger.viewIds[iteration] =
+                    nonZeroIds[orderedIndices[inReversedOrder ? count - 1 - iteration : iteration]];
+            inFlightStagger.timeline.durations[iteration] = partialDuration;
+        }
+        inFlightStagger.start(isShowing, count, now);
+    }
+
+    /**
+     * Prepares a transition running the interrupted one backwards from its current position. It's
+     * not cached, as it depends on the moment of interruption.
+     */
+    @VisibleForTesting
+    final Transition prepareInterruptingTransition(boolean isShowing, boolean inReversedOrder, long now) {
+        int startedCount = inFlightStagger.reverse(now, getEffectivePartialDuration());
+        int count = inFlightStagger.timeline.count;
+        resolveViews();
+        TransitionSet staggeredTransition = new TransitionSet();
+        if (scopedCaptureEnabled) {
+            scopeCaptureToIds(staggeredTransition, inFlightStagger.viewIds, count);
+        }
+        if (staggerListener != defaultStaggerListener) {
+            staggeredTransition.addListener(new StaggerTransitionListener(this, isShowing, staggerRun));
+        }
+        fillReversalStartDelays(inFlightStagger.timeline.startDelays, inFlightStagger.viewIds, count, startedCount);
+        for (int iteration = 0; iteration < count; iteration++) {
+            int id = inFlightStagger.viewIds[iteration];
+            long startDelay = inFlightStagger.timeline.startDelays[iteration];
+            Transition partialTransition = preparePartialTransition(isShowing, id, iteration)
+                    .setDuration(inFlightStagger.timeline.durations[iteration])
+                    .setStartDelay(startDelay);
+            addTarget(partialTransition, id);
+            if (staggerListener != defaultStaggerListener) {
+                partialTransition.addListener(new PartialTransitionListener(this, id, iteration));
+            }
+            addHardwareLayerListener(partialTransition, id);
+            staggeredTransition.addTransition(partialTransition);
+        }
+        return onStaggeredTransitionReady(staggeredTransition, isShowing, inReversedOrder);
+    }
+
+    /**
+     * Start delays of a reversed stagger. The {@code startedCount} views that have already started
+     * animating are staggered again among themselves, through the {@link StaggerDelayProvider} like
+     * a regular run, the rest of them is switched right away.
+     */
+    final void fillReversalStartDelays(long[] startDelays, int[] viewIds, int count, int startedCount) {
+        long previousStartDelay = 0;
+        for (int iteration = 0; iteration < count; iteration++) {
+            if (iteration < startedCount) {
+                // a step never starts before the previous one, see StaggerDelayProvider
+                previousStartDelay = Math.max(previousStartDelay,
+                        computeStartDelay(viewIds[iteration], iteration, startedCount));
+                startDelays[iteration] = previousStartDelay;
+            } else {
+                startDelays[iteration] = 0;
+            }
+        }
+    }
+
+    /**
+     * Records a run of the group's transitions started by {@link StaggeredAnimationCoordinator} at
+     * {@code startTime}, the same way as the group's own runs are recorded, so that it's reversed
+     * when interrupted and ended when the group is detached.
+     */
+    final void recordCoordinatedRun(boolean isShowing, boolean inReversedOrder, long startTime) {
+        transitionsEndTime = startTime + computeTotalDuration();
+        if (interruptible) {
+            recordInFlightStagger(isShowing, inReversedOrder, startTime);
+        }
+    }
+
+    /**
+     * Starts a new run of the staggered animation, superseding the one that may be still running.
+     */
+    final void beginStaggerRun() {
+        staggerRun++;
+    }
+
+    private void trackFrameMetrics(boolean isShowing) {
+        if (frameMetricsListener == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return;
+        }
+        if (frameMetricsTracker == null) {
+            frameMetricsTracker = new FrameMetricsTracker();
+        }
+        long expectedDurationNanos = TimeUnit.MILLISECONDS.toNanos(computeTotalDuration());
+        frameMetricsTracker.start(frameMetricsListener, isShowing,
+                expectedDurationNanos, getFrameIntervalNanos(), System.nanoTime());
+    }
+
+    private long getFrameIntervalNanos() {
+        WindowManager windowManager = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+        float refreshRate = windowManager.getDefaultDisplay().getRefreshRate();
+        if (refreshRate < 1f) {
+            refreshRate = 60f;
+        }
+        return (long) (TimeUnit.SECONDS.toNanos(1) / refreshRate);
+    }
+
+    @VisibleForTesting
+    final boolean isAnimatorEngineUsed() {
+        return staggerEngine == ENGINE_ANIMATOR
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH;
+    }
+
+    @VisibleForTesting
+    final AnimatorStaggerEngine getAnimatorEngine() {
+        if (animatorEngine == null) {
+            animatorEngine = new AnimatorStaggerEngine(this);
         }
+        return animatorEngine;
     }
 
+    public final void setStaggerEngine(@StaggerEngine int staggerEngine) {
+        if (this.staggerEngine != staggerEngine && animatorEngine != null) {
+            animatorEngine.cancel();
+        }
+        this.staggerEngine = staggerEngine;
+    }
+
+    /**
+     * When enabled, views outside of the parent's visible rect (e.g. scrolled away) and views that
+     * are already in the target state are not animated. They get the final state right away and
+     * the remaining views are staggered as if the culled ones weren't in the group.
+     */
+    public final void setCullingEnabled(boolean cullingEnabled) {
+        this.cullingEnabled = cullingEnabled;
+        if (!cullingEnabled) {
+            resetCulling();
+        }
+    }
+
+    /**
+     * Sets visibility of the views when the group is hidden. See {@link #HIDE_MODE_GONE} and
+     * {@link #HIDE_MODE_INVISIBLE}.
+     */
+    public final void setHideMode(@HideMode int hideMode) {
+        this.hideMode = hideMode;
+    }
+
+    /**
+     * Sets the factory of transitions animating single views. See {@link StaggerEffects} for the
+     * built-in ones.
+     */
     public final void setPartialTransitionFactory(@NonNull PartialTransitionFactory factory) {
         Preconditions.checkNotNull(factory, "factory==null");
         partialTransitionFactory = factory;
+        invalidatePreparedTransitions();
     }
 
     public final void clearPartialTransitionFactory() {
         partialTransitionFactory = defaultPartialTransitionFactory;
+        invalidatePreparedTransitions();
     }
 
+    /**
+     * Lets {@code listener} customize (or replace) the staggered transition right before it's run.
+     * The listener is called on every {@link #show(boolean)}/{@link #hide(boolean)} call with a fresh
+     * clone of the cached transition, so it's fine to add listeners to it. Prepare anything
+     * expensive ahead of time, as it's called on the hot path.
+     */
     public final void setOnTransitionPreparedListener(@NonNull OnTransitionPreparedListener listener) {
         Preconditions.checkNotNull(listener, "listener==null");
         onPreparedListener = listener;
@@ -191,16 +1299,208 @@ public class StaggeredAnimationGroup extends Group {
         onPreparedListener = defaultOnPreparedListener;
     }
 
+    /**
+     * Consecutive views (in the order of the stagger) with equal batch keys are animated together,
+     * by a single partial transition targeting all of them. See {@link StaggerBatches} for the
+     * built-in batchings. Like the order, batches are computed after layout and reused until the
+     * next layout pass.
+     */
+    public final void setStaggerBatching(@NonNull StaggerBatching batching) {
+        Preconditions.checkNotNull(batching, "batching==null");
+        staggerBatching = batching;
+        batchesDirty = true;
+    }
+
+    public final void clearStaggerBatching() {
+        staggerBatching = defaultStaggerBatching;
+        batchesDirty = true;
+    }
+
+    /**
+     * Animations are also skipped (regardless of this setting) when the animator duration scale is
+     * set to 0 or the device is in battery saver mode. {@link StaggerListener} is still notified about
+     * start and end of a skipped stagger, but not about its partial ends.
+     */
+    public final void setAnimationsEnabled(boolean animationsEnabled) {
+        this.animationsEnabled = animationsEnabled;
+    }
+
+    /**
+     * When enabled, each view is promoted to a hardware layer right before its partial animation
+     * starts (after its start delay) and gets its original layer type back when the partial
+     * animation ends or is cancelled. Complex views (text, shadows, nested layouts) are then
+     * rendered once and only composited in the following frames. Requires API 11.
+     */
+    public final void setHardwareLayersEnabled(boolean enabled) {
+        hardwareLayersEnabled = enabled;
+    }
+
+    /**
+     * When enabled, preparing transitions and starting them is marked with trace sections, visible in
+     * systrace/Perfetto alongside layout and draw (requires API 18). Each staggered animation is
+     * also marked with an async section tagged with the group id and the number of animated views,
+     * lasting the expected duration of the whole staggered animation.
+     */
+    public final void setTracingEnabled(boolean enabled) {
+        tracingEnabled = enabled;
+        if (!enabled) {
+            endStaggerTrace();
+        }
+    }
+
+    /**
+     * When interruptible, calling {@link #hide(boolean)} while {@link #show(boolean)} is still running
+     * (or the other way around) reverses the running staggered animation from its current position,
+     * instead of starting the opposite one from scratch. Only views that have already started
+     * animating are animated back, with delays recomputed among them; the rest is switched right away.
+     * {@code inReversedOrder} is ignored in that case.
+     */
+    public final void setInterruptible(boolean interruptible) {
+        this.interruptible = interruptible;
+    }
+
+    /**
+     * When coalescing is enabled, {@link #show(boolean)}/{@link #hide(boolean)} calls are not executed
+     * right away. Only the last one requested before the next animation frame is executed, the rest
+     * of them is dropped. Disabling coalescing executes the pending request immediately.
+     */
+    public final void setCoalescingEnabled(boolean enabled) {
+        coalescingEnabled = enabled;
+        if (!enabled) {
+            runPendingRequest();
+        }
+    }
+
+    /**
+     * Notifies {@code listener} when the staggered animation starts, when each partial animation
+     * ends and when the whole staggered animation ends.
+     */
+    public final void setStaggerListener(@NonNull StaggerListener listener) {
+        Preconditions.checkNotNull(listener, "listener==null");
+        staggerListener = listener;
+    }
+
+    public final void clearStaggerListener() {
+        staggerListener = defaultStaggerListener;
+    }
+
+    /**
+     * Reports frame timings of each staggered animation to {@code listener} (requires API 16).
+     * Tracking lasts until the expected duration of the whole staggered animation passes.
+     */
+    public final void setOnStaggerFrameMetricsListener(@NonNull OnStaggerFrameMetricsListener listener) {
+        Preconditions.checkNotNull(listener, "listener==null");
+        frameMetricsListener = listener;
+    }
+
+    public final void clearOnStaggerFrameMetricsListener() {
+        frameMetricsListener = null;
+        if (frameMetricsTracker != null) {
+            frameMetricsTracker.stop();
+        }
+    }
+
+    /**
+     * Sets the order in which views are staggered. Views are sorted by the keys returned from
+     * {@code order} (see {@link StaggerOrders} for the built-in ones). The order is computed after
+     * layout and reused for all subsequent {@link #show(boolean)}/{@link #hide(boolean)} calls,
+     * until the next layout pass.
+     */
+    public final void setStaggerOrder(@NonNull StaggerOrder order) {
+        Preconditions.checkNotNull(order, "order==null");
+        staggerOrder = order;
+        orderDirty = true;
+    }
+
+    public final void clearStaggerOrder() {
+        staggerOrder = defaultStaggerOrder;
+        orderDirty = true;
+    }
+
+    /**
+     * By default the transition framework captures start and end values of every view in the parent
+     * {@link ConstraintLayout}. With scoped capture enabled only the referenced views are captured,
+     * which is a lot cheaper when the group is small compared to the number of its siblings.
+     */
+    public final void setScopedCaptureEnabled(boolean enabled) {
+        this.scopedCaptureEnabled = enabled;
+        invalidatePreparedTransitions();
+    }
+
     public final void setPartialDuration(int partialDuration) {
         this.partialDuration = partialDuration;
+        invalidatePreparedTransitions();
+    }
+
+    /**
+     * Replaces the linear {@code indexInTransition * partialDelay} delays, see {@link StaggerDelays}
+     * for the built-in providers. Delays are computed once per configuration (and referenced ids)
+     * and reused between runs.
+     */
+    public final void setStaggerDelayProvider(@NonNull StaggerDelayProvider provider) {
+        Preconditions.checkNotNull(provider, "provider==null");
+        staggerDelayProvider = provider;
+        invalidatePreparedTransitions();
+    }
+
+    public final void clearStaggerDelayProvider() {
+        staggerDelayProvider = defaultStaggerDelayProvider;
+        invalidatePreparedTransitions();
     }
 
     public final void setPartialDelay(int partialDelay) {
         this.partialDelay = partialDelay;
+        invalidatePreparedTransitions();
+    }
+
+    /**
+     * Caps the duration of the whole staggered animation. When the sum of all partial delays and the
+     * partial duration would exceed it, delays are linearly compressed so that the last view finishes
+     * within {@code maxTotalDuration}. Pass {@link #NO_MAX_TOTAL_DURATION} to remove the limit.
+     */
+    public final void setMaxTotalDuration(int maxTotalDuration) {
+        setMaxTotalDuration(maxTotalDuration, null);
+    }
+
+    /**
+     * Same as {@link #setMaxTotalDuration(int)}, but compressed delays are distributed according to
+     * {@code delayCurve} instead of linearly.
+     */
+    public final void setMaxTotalDuration(int maxTotalDuration, TimeInterpolator delayCurve) {
+        this.maxTotalDuration = maxTotalDuration;
+        this.maxTotalDurationCurve = delayCurve;
+        invalidatePreparedTransitions();
     }
 
     public final void setPartialInterpolator(TimeInterpolator partialInterpolator) {
         this.partialInterpolator = partialInterpolator;
+        invalidatePreparedTransitions();
+    }
+
+    /**
+     * When enabled, the partial interpolator is sampled into a lookup table (shared by all groups
+     * using the same interpolator instance, see {@link SampledInterpolator}), which is evaluated
+     * instead of it on every frame of every partial animation. Worth enabling for expensive
+     * interpolators, e.g. {@code PathInterpolator}. The default interpolator is already backed
+     * by a lookup table.
+     */
+    public final void setInterpolatorSamplingEnabled(boolean enabled) {
+        if (interpolatorSamplingEnabled != enabled) {
+            interpolatorSamplingEnabled = enabled;
+            invalidatePreparedTransitions();
+        }
+    }
+
+    /**
+     * Prepared staggered transitions are cached and reused between {@link #show(boolean)} and
+     * {@link #hide(boolean)} calls. They are invalidated automatically whenever referenced ids or any
+     * of the partial transition params change. Call this method if your
+     * {@link PartialTransitionFactory} depends on some external state that has changed.
+     */
+    public final void invalidatePreparedTransitions() {
+        Arrays.fill(preparedTransitions, null);
+        forwardStartDelaysDirty = true;
+        reversedStartDelaysDirty = true;
     }
 
     public interface PartialTransitionFactory {
@@ -210,10 +1510,69 @@ public class StaggeredAnimationGroup extends Group {
                                            int indexInTransition);
     }
 
+    public interface StaggerOrder {
+        /**
+         * @return key by which views are sorted (ascending) in the stagger
+         */
+        double getOrderKey(@NonNull View view, int indexInGroup);
+    }
+
+    /**
+     * Delays are expected to grow with {@code indexInTransition}. A delay smaller than the one of the
+     * previous step is raised to it, so steps always start in the order of the stagger.
+     */
+    public interface StaggerDelayProvider {
+        /**
+         * @param viewId            id of the (first) view animated at {@code indexInTransition}
+         * @param indexInTransition index of the step of the stagger
+         * @param count             number of steps of the stagger
+         * @return start delay (in milliseconds) of the step
+         */
+        long getStartDelay(int viewId, int indexInTransition, int count);
+    }
+
+    public interface StaggerBatching {
+        /**
+         * @param view         view at {@code indexInGroup} in the order of the stagger, {@code null}
+         *                     if it couldn't be found in the parent
+         * @param indexInGroup index of the view in the order of the stagger
+         * @return key of the batch the view belongs to
+         */
+        int getBatchKey(@Nullable View view, int indexInGroup);
+    }
+
     public interface OnTransitionPreparedListener {
         @NonNull
         TransitionSet onStaggeredTransitionPrepared(@NonNull TransitionSet transitionSet,
                                                     boolean show,
                                                     boolean inReversedOrder);
     }
+
+    public interface StaggerListener {
+        void onStaggerStart(boolean show);
+
+        void onPartialEnd(int viewId, int indexInTransition);
+
+        /**
+         * @param cancelled {@code true} if the staggered animation was interrupted (e.g. by another
+         *                  {@link #show(boolean)}/{@link #hide(boolean)} call)
+         */
+        void onStaggerEnd(boolean show, boolean cancelled);
+    }
+
+    public interface OnStaggerFrameMetricsListener {
+        /**
+         * @param frameCount            number of frames rendered during the staggered animation
+         * @param droppedFrames         number of frames skipped because of late frames
+         * @param maxFrameTimeNanos     longest time between two consecutive frames
+         * @param durationNanos         wall-clock duration of the staggered animation
+         * @param expectedDurationNanos duration resulting from partial delays and duration
+         */
+        void onStaggerFrameMetrics(boolean show,
+                                   int frameCount,
+                                   int droppedFrames,
+                                   long maxFrameTimeNanos,
+                                   long durationNanos,
+                                   long expectedDurationNanos);
+    }
 }
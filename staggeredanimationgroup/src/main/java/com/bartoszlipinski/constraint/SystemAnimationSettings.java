@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Bartosz Lipinski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bartoszlipinski.constraint;
+
+import android.animation.ValueAnimator;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.provider.Settings;
+
+import static com.bartoszlipinski.constraint.internal.Utils.isAnimatorDurationScaleZero;
+import static com.bartoszlipinski.constraint.internal.Utils.isPowerSaveMode;
+
+/**
+ * Process-wide cache of the system settings that turn animations off, shared by all the groups.
+ * Reading them is a binder call, which doesn't belong on the show()/hide() path, so they are read
+ * once and again only after a change is reported. A single receiver (and observer) is registered
+ * lazily with the application context, for the lifetime of the process.
+ */
+final class SystemAnimationSettings {
+
+    private static SystemAnimationSettings instance;
+
+    private final Context context;
+    private boolean dirty = true;
+    private boolean animatorDurationScaleZero;
+    private boolean powerSaveMode;
+
+    private SystemAnimationSettings(Context context) {
+        this.context = context;
+    }
+
+    static SystemAnimationSettings get(Context context) {
+        Context applicationContext = context.getApplicationContext();
+        if (instance == null || instance.context != applicationContext) {
+            instance = new SystemAnimationSettings(applicationContext);
+            instance.register();
+        }
+        return instance;
+    }
+
+    private void register() {
+        Handler handler = new Handler(Looper.getMainLooper());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1
+                && Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            context.getContentResolver().registerContentObserver(
+                    Settings.Global.getUriFor(Settings.Global.ANIMATOR_DURATION_SCALE), false,
+                    new ContentObserver(handler) {
+                        @Override
+                        public void onChange(boolean selfChange) {
+                            dirty = true;
+                        }
+                    });
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            context.registerReceiver(new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    dirty = true;
+                }
+            }, new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED), null, handler);
+        }
+    }
+
+    /**
+     * On API 26+ the duration scale is checked through the in-process
+     * {@link ValueAnimator#areAnimatorsEnabled()} instead of the cached setting.
+     */
+    boolean areAnimationsDisabled() {
+        if (dirty) {
+            dirty = false;
+            animatorDurationScaleZero = Build.VERSION.SDK_INT < Build.VERSION_CODES.O
+                    && isAnimatorDurationScaleZero(context);
+            powerSaveMode = isPowerSaveMode(context);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && !ValueAnimator.areAnimatorsEnabled()) {
+            return true;
+        }
+        return animatorDurationScaleZero || powerSaveMode;
+    }
+}
@@ -0,0 +1,80 @@
+package com.bartoszlipinski.constraint.internal;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.lang.reflect.Method;
+
+import static com.bartoszlipinski.constraint.internal.Utils.warning;
+
+/**
+ * Async trace sections, which (unlike {@link android.support.v4.os.TraceCompat} sections) may begin
+ * and end on different frames. Public API for them is available since API 29 and a hidden one
+ * since API 18, both are called reflectively. Once reflection fails, async sections are no-ops.
+ */
+public final class AsyncTrace {
+
+    private static final int API_29 = 29;
+
+    private static boolean initialized;
+    private static Method beginMethod;
+    private static Method endMethod;
+    private static long traceTagApp;
+
+    public static void beginSection(String sectionName, int cookie) {
+        invoke(true, sectionName, cookie);
+    }
+
+    public static void endSection(String sectionName, int cookie) {
+        invoke(false, sectionName, cookie);
+    }
+
+    private static void invoke(boolean begin, String sectionName, int cookie) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            return;
+        }
+        if (!initialized) {
+            initialize();
+        }
+        Method method = begin ? beginMethod : endMethod;
+        if (method == null) {
+            return;
+        }
+        try {
+            if (Build.VERSION.SDK_INT >= API_29) {
+                method.invoke(null, sectionName, cookie);
+            } else {
+                method.invoke(null, traceTagApp, sectionName, cookie);
+            }
+        } catch (Exception e) {
+            disable(e);
+        }
+    }
+
+    private static void initialize() {
+        initialized = true;
+        try {
+            if (Build.VERSION.SDK_INT >= API_29) {
+                beginMethod = Trace.class.getMethod("beginAsyncSection", String.class, int.class);
+                endMethod = Trace.class.getMethod("endAsyncSection", String.class, int.class);
+            } else {
+                traceTagApp = Trace.class.getField("TRACE_TAG_APP").getLong(null);
+                beginMethod = Trace.class.getMethod("asyncTraceBegin", long.class, String.class, int.class);
+                endMethod = Trace.class.getMethod("asyncTraceEnd", long.class, String.class, int.class);
+            }
+        } catch (Exception e) {
+            disable(e);
+        }
+    }
+
+    private static void disable(Exception cause) {
+        warning("Async trace sections are not available: " + cause);
+        beginMethod = null;
+        endMethod = null;
+    }
+
+    // Suppress default constructor for noninstantiability
+    private AsyncTrace() {
+        throw new AssertionError();
+    }
+}
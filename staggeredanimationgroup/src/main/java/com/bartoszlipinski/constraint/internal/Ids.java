@@ -0,0 +1,33 @@
+package com.bartoszlipinski.constraint.internal;
+
+/**
+ * Framework-free helpers for the referenced ids of a group, so they can be benchmarked on a plain JVM.
+ */
+public final class Ids {
+
+    /**
+     * Drops the trailing zeros {@code Group} leaves in its ids array after growing it. Returns
+     * {@code allIds} itself when there's nothing to drop.
+     */
+    public static int[] filterNonZeroIds(int[] allIds) {
+        int nonZeroIdsCount = 0;
+        for (int id : allIds) {
+            if (id != 0) {
+                nonZeroIdsCount++;
+            }
+        }
+        if (nonZeroIdsCount == allIds.length) {
+            return allIds;
+        }
+        int[] groupIds = new int[nonZeroIdsCount];
+        for (int i = 0; i < nonZeroIdsCount; i++) {
+            groupIds[i] = allIds[i];
+        }
+        return groupIds;
+    }
+
+    // Suppress default constructor for noninstantiability
+    private Ids() {
+        throw new AssertionError();
+    }
+}
@@ -1,11 +1,18 @@
 package com.bartoszlipinski.constraint.internal;
 
+import android.content.Context;
+import android.os.Build;
+import android.os.PowerManager;
+import android.provider.Settings;
 import android.support.annotation.Nullable;
 import android.support.constraint.ConstraintLayout;
 import android.util.Log;
 import android.view.View;
 import android.view.ViewParent;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 public final class Utils {
 
     @Nullable
@@ -26,6 +33,45 @@ public final class Utils {
         Log.w("StaggeredAnimationGroup", msg);
     }
 
+    /**
+     * {@code true} if animators are turned off in developer options (or by accessibility settings).
+     * Reads the global setting, so callers on a hot path should cache the result.
+     */
+    public static boolean isAnimatorDurationScaleZero(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            float durationScale = Settings.Global.getFloat(
+                    context.getContentResolver(), Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+            return durationScale == 0f;
+        }
+        return false;
+    }
+
+    /**
+     * {@code true} if the device is in battery saver mode. This is a binder call, so callers on a hot
+     * path should cache the result and refresh it on
+     * {@link PowerManager#ACTION_POWER_SAVE_MODE_CHANGED}.
+     */
+    public static boolean isPowerSaveMode(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+            return powerManager != null && powerManager.isPowerSaveMode();
+        }
+        return false;
+    }
+
+    /**
+     * Stable sort of {@code indices} by {@code keys[index]}, in O(N log N). Indices with equal keys
+     * keep their relative order.
+     */
+    public static void sortIndicesByKeys(Integer[] indices, final double[] keys) {
+        Arrays.sort(indices, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                return Double.compare(keys[first], keys[second]);
+            }
+        });
+    }
+
     // Suppress default constructor for noninstantiability
     private Utils() {
         throw new AssertionError();
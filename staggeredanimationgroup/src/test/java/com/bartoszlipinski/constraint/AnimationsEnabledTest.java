@@ -0,0 +1,141 @@
+package com.bartoszlipinski.constraint;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.os.PowerManager;
+import android.provider.Settings;
+import android.support.constraint.ConstraintLayout;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.bartoszlipinski.constraint.internal.RecordingStaggerListener;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.robolectric.Shadows.shadowOf;
+
+@Config(manifest = Config.NONE, sdk = 23)
+@RunWith(RobolectricTestRunner.class)
+public class AnimationsEnabledTest {
+
+    @Test
+    public void shouldAnimate_isTrue_byDefault() {
+        //given
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+
+        //when
+        boolean shouldAnimate = group.shouldAnimate();
+
+        //then
+        assertThat(shouldAnimate).isTrue();
+    }
+
+    @Test
+    public void shouldAnimate_isFalse_whenAnimationsAreDisabled() {
+        //given
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+
+        //when
+        group.setAnimationsEnabled(false);
+
+        //then
+        assertThat(group.shouldAnimate()).isFalse();
+    }
+
+    @Test
+    public void shouldAnimate_isFalse_whenAnimatorDurationScaleIsZero() {
+        //given
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+
+        //when
+        Settings.Global.putFloat(RuntimeEnvironment.application.getContentResolver(),
+                Settings.Global.ANIMATOR_DURATION_SCALE, 0f);
+
+        //then
+        assertThat(group.shouldAnimate()).isFalse();
+    }
+
+    @Test
+    public void shouldAnimate_isFalse_inPowerSaveMode() {
+        //given
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        PowerManager powerManager =
+                (PowerManager) RuntimeEnvironment.application.getSystemService(Context.POWER_SERVICE);
+
+        //when
+        shadowOf(powerManager).setIsPowerSaveMode(true);
+
+        //then
+        assertThat(group.shouldAnimate()).isFalse();
+    }
+
+    @Test
+    public void shouldAnimate_refreshesPowerSaveMode_onBroadcast_whenAttached() {
+        //given
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(activity);
+        activity.setContentView(group);
+        PowerManager powerManager =
+                (PowerManager) RuntimeEnvironment.application.getSystemService(Context.POWER_SERVICE);
+        assertThat(group.shouldAnimate()).isTrue();
+        shadowOf(powerManager).setIsPowerSaveMode(true);
+        boolean shouldAnimateBeforeBroadcast = group.shouldAnimate();
+
+        //when
+        RuntimeEnvironment.application.sendBroadcast(new Intent(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+
+        //then
+        assertThat(shouldAnimateBeforeBroadcast).isTrue();
+        assertThat(group.shouldAnimate()).isFalse();
+    }
+
+    @Test
+    public void attachedGroups_shareSinglePowerSaveModeReceiver() {
+        //given
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        ConstraintLayout parent = new ConstraintLayout(activity);
+        StaggeredAnimationGroup first = new StaggeredAnimationGroup(activity);
+        StaggeredAnimationGroup second = new StaggeredAnimationGroup(activity);
+        parent.addView(first);
+        parent.addView(second);
+        activity.setContentView(parent);
+
+        //when
+        first.shouldAnimate();
+        second.shouldAnimate();
+        ((ViewGroup) activity.findViewById(android.R.id.content)).removeAllViews();
+        activity.setContentView(parent);
+        first.shouldAnimate();
+
+        //then
+        Intent intent = new Intent(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        assertThat(shadowOf(RuntimeEnvironment.application).getReceiversForIntent(intent)).hasSize(1);
+    }
+
+    @Test
+    public void hide_appliesFinalState_withoutPreparingTransitions_whenAnimationsAreDisabled() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        parent.addView(group);
+        group.setReferencedIds(new int[]{1, 2});
+        group.setAnimationsEnabled(false);
+        RecordingStaggerListener listener = new RecordingStaggerListener();
+        group.setStaggerListener(listener);
+
+        //when
+        group.hide();
+
+        //then
+        assertThat(group.getVisibility()).isEqualTo(View.GONE);
+        assertThat(group.preparedTransitions).asList().containsExactly(null, null, null, null);
+        assertThat(listener.events).isEqualTo("start(false) end(false, false) ");
+    }
+}
@@ -0,0 +1,177 @@
+package com.bartoszlipinski.constraint;
+
+import android.support.constraint.ConstraintLayout;
+import android.support.transition.Transition;
+import android.support.transition.TransitionSet;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class BatchingTest {
+
+    @Test
+    public void staggerBatching_isTheDefaultInstance_whenGroupIsCreated() {
+        //given
+
+        //when
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+
+        //then
+        assertThat(group.staggerBatching).isEqualTo(StaggeredAnimationGroup.defaultStaggerBatching);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void setStaggerBatching_throwsNpe_whenPassed_null_batching() {
+        //given
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        StaggeredAnimationGroup.StaggerBatching batching = null;
+
+        //when
+        group.setStaggerBatching(batching);
+
+        //then
+        // -> handled by `expected`
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void chunksOf_throwsIae_whenPassed_zero() {
+        //given
+
+        //when
+        StaggerBatches.chunksOf(0);
+
+        //then
+        // -> handled by `expected`
+    }
+
+    @Test
+    public void prepareStaggeredTransition_createsOnePartialPerView_byDefault() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2, 3, 4, 5);
+
+        //when
+        TransitionSet set = (TransitionSet) group.prepareStaggeredTransition(true, false);
+
+        //then
+        assertThat(set.getTransitionCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void prepareStaggeredTransition_createsOnePartialPerBatch() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2, 3, 4, 5);
+        group.setStaggerBatching(StaggerBatches.chunksOf(2));
+
+        //when
+        TransitionSet set = (TransitionSet) group.prepareStaggeredTransition(true, false);
+
+        //then
+        assertThat(set.getTransitionCount()).isEqualTo(3);
+        assertPartial(set.getTransitionAt(0), 0, 1, 2);
+        assertPartial(set.getTransitionAt(1), 50, 3, 4);
+        assertPartial(set.getTransitionAt(2), 100, 5);
+    }
+
+    @Test
+    public void prepareStaggeredTransition_keepsBatches_inReversedOrder() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2, 3, 4, 5);
+        group.setStaggerBatching(StaggerBatches.chunksOf(2));
+
+        //when
+        TransitionSet set = (TransitionSet) group.prepareStaggeredTransition(true, true);
+
+        //then
+        assertThat(set.getTransitionCount()).isEqualTo(3);
+        assertPartial(set.getTransitionAt(0), 0, 5);
+        assertPartial(set.getTransitionAt(1), 50, 4, 3);
+        assertPartial(set.getTransitionAt(2), 100, 2, 1);
+    }
+
+    @Test
+    public void rows_batchesViews_withTheSameTop() {
+        //given
+        StaggeredAnimationGroup group = prepareGroupInGrid();
+        group.setStaggerOrder(StaggerOrders.topToBottom());
+        group.setStaggerBatching(StaggerBatches.rows());
+
+        //when
+        TransitionSet set = (TransitionSet) group.prepareStaggeredTransition(true, false);
+
+        //then
+        assertThat(set.getTransitionCount()).isEqualTo(2);
+        assertPartial(set.getTransitionAt(0), 0, 1, 2);
+        assertPartial(set.getTransitionAt(1), 50, 3, 4);
+    }
+
+    @Test
+    public void computeTotalDuration_countsBatches_insteadOfViews() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2, 3, 4, 5);
+        group.setStaggerBatching(StaggerBatches.chunksOf(2));
+
+        //when
+        long totalDuration = group.computeTotalDuration();
+
+        //then
+        assertThat(totalDuration).isEqualTo(100 + StaggeredAnimationGroup.DEFAULT_PARTIAL_DURATION);
+    }
+
+    @Test
+    public void setStaggerBatching_invalidatesPreparedTransitions() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2, 3, 4, 5);
+        Transition first = group.obtainStaggeredTransition(true, false);
+
+        //when
+        group.setStaggerBatching(StaggerBatches.chunksOf(2));
+        Transition second = group.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(second).isNotSameAs(first);
+    }
+
+    private static void assertPartial(Transition partial, long startDelay, Integer... targetIds) {
+        assertThat(partial.getStartDelay()).isEqualTo(startDelay);
+        List<Integer> actualTargetIds = new ArrayList<Integer>(partial.getTargetIds());
+        for (View target : partial.getTargets()) {
+            actualTargetIds.add(target.getId());
+        }
+        assertThat(actualTargetIds).containsExactly((Object[]) targetIds).inOrder();
+    }
+
+    private static StaggeredAnimationGroup prepareGroup(int... ids) {
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        group.setReferencedIds(ids);
+        return group;
+    }
+
+    private static StaggeredAnimationGroup prepareGroupInGrid() {
+        // 2x2 grid, referenced in reversed order
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        int[][] positions = new int[][]{{100, 100}, {0, 100}, {100, 0}, {0, 0}};
+        int[] ids = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            View view = new View(RuntimeEnvironment.application);
+            view.setId(positions.length - i);
+            parent.addView(view);
+            view.layout(positions[i][0], positions[i][1], positions[i][0] + 100, positions[i][1] + 100);
+            ids[i] = view.getId();
+        }
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        parent.addView(group);
+        group.setReferencedIds(ids);
+        return group;
+    }
+}
@@ -0,0 +1,83 @@
+package com.bartoszlipinski.constraint;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.bartoszlipinski.constraint.internal.Utilities.prepareSpiedGroup;
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class CoalescingTest {
+
+    @Test
+    public void coalescingEnabled_isFalse_asInitialState() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+
+        //when
+        // nothing to do here (this checks the initial state)
+
+        //then
+        assertThat(spiedGroup.coalescingEnabled).isFalse();
+    }
+
+    @Test
+    public void show_doesNotCreatePendingRequest_whenCoalescingIsDisabled() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+
+        //when
+        spiedGroup.show();
+
+        //then
+        assertThat(spiedGroup.hasPendingRequest).isFalse();
+    }
+
+    @Test
+    public void showAndHide_keepOnlyTheLatestRequest_whenCoalescingIsEnabled() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setCoalescingEnabled(true);
+
+        //when
+        spiedGroup.show();
+        spiedGroup.hide(true);
+        spiedGroup.show(true);
+
+        //then
+        assertThat(spiedGroup.hasPendingRequest).isTrue();
+        assertThat(spiedGroup.pendingShowing).isTrue();
+        assertThat(spiedGroup.pendingInReversedOrder).isTrue();
+    }
+
+    @Test
+    public void runPendingRequest_clearsPendingRequest() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setCoalescingEnabled(true);
+        spiedGroup.hide();
+
+        //when
+        spiedGroup.runPendingRequest();
+
+        //then
+        assertThat(spiedGroup.hasPendingRequest).isFalse();
+    }
+
+    @Test
+    public void setCoalescingEnabled_false_runsPendingRequest() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setCoalescingEnabled(true);
+        spiedGroup.hide();
+
+        //when
+        spiedGroup.setCoalescingEnabled(false);
+
+        //then
+        assertThat(spiedGroup.hasPendingRequest).isFalse();
+    }
+}
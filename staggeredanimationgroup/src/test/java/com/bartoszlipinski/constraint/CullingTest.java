@@ -0,0 +1,156 @@
+package com.bartoszlipinski.constraint;
+
+import android.support.constraint.ConstraintLayout;
+import android.support.transition.Transition;
+import android.support.transition.TransitionSet;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class CullingTest {
+
+    private static final int PARENT_SIZE = 500;
+    // second view is below the visible rect of the parent
+    private static final int[] VIEW_TOPS = new int[]{0, 1000, 200};
+
+    @Test
+    public void cullingEnabled_isFalse_whenGroupIsCreated() {
+        //given
+
+        //when
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+
+        //then
+        assertThat(group.cullingEnabled).isFalse();
+    }
+
+    @Test
+    public void cullViews_leavesOut_offScreenViews() {
+        //given
+        StaggeredAnimationGroup group = prepareLaidOutGroup();
+
+        //when
+        group.cullViews(false);
+
+        //then
+        assertThat(group.getStaggeredOrder()).asList().containsExactly(0, 2).inOrder();
+    }
+
+    @Test
+    public void cullViews_leavesOut_viewsInTargetState() {
+        //given
+        StaggeredAnimationGroup group = prepareLaidOutGroup();
+
+        //when
+        group.cullViews(true);
+
+        //then
+        assertThat(group.getStaggeredOrder()).isEmpty();
+    }
+
+    @Test
+    public void prepareStaggeredTransition_staggersRemainingViews_withoutGaps() {
+        //given
+        StaggeredAnimationGroup group = prepareLaidOutGroup();
+        group.cullViews(false);
+
+        //when
+        TransitionSet set = (TransitionSet) group.prepareStaggeredTransition(false, false);
+
+        //then
+        assertThat(set.getTransitionCount()).isEqualTo(2);
+        assertThat(set.getTransitionAt(0).getStartDelay()).isEqualTo(0);
+        assertThat(set.getTransitionAt(1).getStartDelay()).isEqualTo(StaggeredAnimationGroup.DEFAULT_PARTIAL_TRANSITION_DELAY);
+        assertThat(set.getTransitionAt(1).getTargets()).containsExactly(group.resolveView(3));
+    }
+
+    @Test
+    public void cullViews_invalidatesPreparedTransitions_onlyWhenCulledViewsChange() {
+        //given
+        StaggeredAnimationGroup group = prepareLaidOutGroup();
+        Transition notCulled = group.obtainStaggeredTransition(false, false);
+        group.cullViews(false);
+        Transition culled = group.obtainStaggeredTransition(false, false);
+
+        //when
+        group.cullViews(false);
+        Transition culledAgain = group.obtainStaggeredTransition(false, false);
+
+        //then
+        assertThat(culled).isNotSameAs(notCulled);
+        assertThat(culledAgain).isSameAs(culled);
+    }
+
+    @Test
+    public void setCullingEnabled_false_restoresAllViews() {
+        //given
+        StaggeredAnimationGroup group = prepareLaidOutGroup();
+        group.setCullingEnabled(true);
+        group.cullViews(false);
+
+        //when
+        group.setCullingEnabled(false);
+
+        //then
+        assertThat(group.getStaggeredOrder()).isSameAs(group.getOrder());
+    }
+
+    @Test
+    public void animatorEngine_staggersRemainingViews_withoutGaps() {
+        //given
+        StaggeredAnimationGroup group = prepareLaidOutGroup();
+        group.setCullingEnabled(true);
+        group.setStaggerEngine(StaggeredAnimationGroup.ENGINE_ANIMATOR);
+
+        //when
+        group.hide();
+
+        //then
+        AnimatorStaggerEngine engine = group.getAnimatorEngine();
+        assertThat(engine.timeline.count).isEqualTo(2);
+        assertThat(engine.viewIds[0]).isEqualTo(1);
+        assertThat(engine.viewIds[1]).isEqualTo(3);
+        assertThat(engine.timeline.startDelays[1])
+                .isEqualTo((long) StaggeredAnimationGroup.DEFAULT_PARTIAL_TRANSITION_DELAY);
+    }
+
+    @Test
+    public void setStaggerProgress_seeksAllViews_afterCullingHide() {
+        //given
+        StaggeredAnimationGroup group = prepareLaidOutGroup();
+        group.setCullingEnabled(true);
+        group.hide();
+
+        //when
+        group.setStaggerProgress(0.5f);
+
+        //then
+        assertThat(group.hasCulledViews).isFalse();
+        assertThat(group.getAnimatorEngine().timeline.count).isEqualTo(VIEW_TOPS.length);
+    }
+
+    private static StaggeredAnimationGroup prepareLaidOutGroup() {
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        parent.layout(0, 0, PARENT_SIZE, PARENT_SIZE);
+        int[] ids = new int[VIEW_TOPS.length];
+        for (int i = 0; i < VIEW_TOPS.length; i++) {
+            View view = new View(RuntimeEnvironment.application);
+            view.setId(i + 1);
+            parent.addView(view);
+            view.layout(0, VIEW_TOPS[i], 100, VIEW_TOPS[i] + 100);
+            ids[i] = view.getId();
+        }
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        parent.addView(group);
+        group.setReferencedIds(ids);
+        return group;
+    }
+}
@@ -0,0 +1,147 @@
+package com.bartoszlipinski.constraint;
+
+import android.app.Activity;
+import android.support.constraint.ConstraintLayout;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import java.lang.ref.WeakReference;
+
+import static com.bartoszlipinski.constraint.internal.Utilities.prepareGroupInParent;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class DetachTest {
+
+    private static final int GROUP_SIZE = 3;
+
+    @Test
+    public void releaseStaggeredAnimation_endsRunningAnimatorStagger_inFinalState() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        group.setStaggerEngine(StaggeredAnimationGroup.ENGINE_ANIMATOR);
+        StaggeredAnimationGroup.StaggerListener listener = mock(StaggeredAnimationGroup.StaggerListener.class);
+        group.setStaggerListener(listener);
+        group.hide();
+
+        //when
+        group.releaseStaggeredAnimation();
+
+        //then
+        verify(listener).onStaggerEnd(false, true);
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            assertThat(parent.getChildAt(i).getAlpha()).isEqualTo(1f);
+            assertThat(parent.getChildAt(i).getVisibility()).isEqualTo(View.GONE);
+        }
+    }
+
+    @Test
+    public void releaseStaggeredAnimation_appliesPendingRequest() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        group.setCoalescingEnabled(true);
+        group.hide();
+
+        //when
+        group.releaseStaggeredAnimation();
+
+        //then
+        assertThat(group.hasPendingRequest).isFalse();
+        assertThat(group.getVisibility()).isEqualTo(View.GONE);
+    }
+
+    @Test
+    public void releaseStaggeredAnimation_dropsPreparedTransitions() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        group.show();
+        group.hide();
+
+        //when
+        group.releaseStaggeredAnimation();
+
+        //then
+        assertThat(group.preparedTransitions).asList().containsExactly(null, null, null, null);
+        assertThat(group.viewsDirty).isTrue();
+    }
+
+    @Test
+    public void detachingGroup_midAnimation_releasesActivity() {
+        assertActivityIsReleased(StaggeredAnimationGroup.ENGINE_ANIMATOR, false);
+    }
+
+    @Test
+    public void detachingGroup_midTransition_releasesActivity() {
+        assertActivityIsReleased(StaggeredAnimationGroup.ENGINE_TRANSITIONS, false);
+    }
+
+    @Test
+    public void detachingGroup_midCoordinatedTransition_releasesActivity() {
+        assertActivityIsReleased(StaggeredAnimationGroup.ENGINE_TRANSITIONS, true);
+    }
+
+    private static void assertActivityIsReleased(int staggerEngine, boolean coordinated) {
+        //given
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class).setup();
+        WeakReference<Activity> activityReference = new WeakReference<>(controller.get());
+        startAnimationInActivity(controller.get(), staggerEngine, coordinated);
+
+        //when
+        ViewGroup content = (ViewGroup) controller.get().findViewById(android.R.id.content);
+        content.removeAllViews();
+        controller.pause().stop().destroy();
+        controller = null;
+
+        //then
+        for (int i = 0; i < 20 && activityReference.get() != null; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+        assertThat(activityReference.get()).isNull();
+    }
+
+    private static void startAnimationInActivity(final Activity activity, int staggerEngine, boolean coordinated) {
+        ConstraintLayout parent = new ConstraintLayout(activity);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        group.setStaggerEngine(staggerEngine);
+        // typical anonymous listener, implicitly referencing its Activity
+        group.setStaggerListener(new StaggeredAnimationGroup.StaggerListener() {
+            @Override
+            public void onStaggerStart(boolean isShowing) {
+                activity.setTitle("start");
+            }
+
+            @Override
+            public void onPartialEnd(int viewId, int indexInTransition) {
+                // nothing to do here
+            }
+
+            @Override
+            public void onStaggerEnd(boolean isShowing, boolean cancelled) {
+                activity.setTitle("end");
+            }
+        });
+        activity.setContentView(parent);
+        if (coordinated) {
+            StaggeredAnimationCoordinator coordinator = new StaggeredAnimationCoordinator();
+            coordinator.addGroup(group, 0);
+            coordinator.hide();
+        } else {
+            group.hide();
+        }
+    }
+}
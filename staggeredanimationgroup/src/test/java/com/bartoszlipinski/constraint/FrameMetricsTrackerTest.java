@@ -0,0 +1,130 @@
+package com.bartoszlipinski.constraint;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class FrameMetricsTrackerTest {
+
+    private static final long FRAME_INTERVAL = 16_000_000L;
+    private static final long START_TIME = 1_000_000_000L;
+
+    @Test
+    public void doFrame_countsFrames_andReports_afterExpectedDuration() {
+        //given
+        FrameMetricsTracker tracker = new FrameMetricsTracker();
+        RecordingListener listener = new RecordingListener();
+        tracker.start(listener, true, 4 * FRAME_INTERVAL, FRAME_INTERVAL, START_TIME);
+
+        //when
+        for (int i = 1; i <= 4; i++) {
+            tracker.doFrame(START_TIME + i * FRAME_INTERVAL);
+        }
+
+        //then
+        assertThat(listener.calls).isEqualTo(1);
+        assertThat(listener.show).isTrue();
+        assertThat(listener.frameCount).isEqualTo(4);
+        assertThat(listener.droppedFrames).isEqualTo(0);
+        assertThat(listener.maxFrameTimeNanos).isEqualTo(FRAME_INTERVAL);
+        assertThat(listener.durationNanos).isEqualTo(4 * FRAME_INTERVAL);
+        assertThat(listener.expectedDurationNanos).isEqualTo(4 * FRAME_INTERVAL);
+        assertThat(tracker.isTracking()).isFalse();
+    }
+
+    @Test
+    public void doFrame_countsDroppedFrames_forLateFrames() {
+        //given
+        FrameMetricsTracker tracker = new FrameMetricsTracker();
+        RecordingListener listener = new RecordingListener();
+        tracker.start(listener, false, 10 * FRAME_INTERVAL, FRAME_INTERVAL, START_TIME);
+
+        //when
+        tracker.doFrame(START_TIME + FRAME_INTERVAL);
+        tracker.doFrame(START_TIME + 4 * FRAME_INTERVAL); // 2 frames dropped
+        tracker.doFrame(START_TIME + 10 * FRAME_INTERVAL); // 5 frames dropped
+
+        //then
+        assertThat(listener.frameCount).isEqualTo(3);
+        assertThat(listener.droppedFrames).isEqualTo(7);
+        assertThat(listener.maxFrameTimeNanos).isEqualTo(6 * FRAME_INTERVAL);
+    }
+
+    @Test
+    public void doFrame_doesNotReport_beforeExpectedDuration() {
+        //given
+        FrameMetricsTracker tracker = new FrameMetricsTracker();
+        RecordingListener listener = new RecordingListener();
+        tracker.start(listener, true, 10 * FRAME_INTERVAL, FRAME_INTERVAL, START_TIME);
+
+        //when
+        tracker.doFrame(START_TIME + FRAME_INTERVAL);
+
+        //then
+        assertThat(listener.calls).isEqualTo(0);
+        assertThat(tracker.isTracking()).isTrue();
+    }
+
+    @Test
+    public void stop_stopsTracking_withoutReporting() {
+        //given
+        FrameMetricsTracker tracker = new FrameMetricsTracker();
+        RecordingListener listener = new RecordingListener();
+        tracker.start(listener, true, 10 * FRAME_INTERVAL, FRAME_INTERVAL, START_TIME);
+
+        //when
+        tracker.stop();
+        tracker.doFrame(START_TIME + 10 * FRAME_INTERVAL);
+
+        //then
+        assertThat(listener.calls).isEqualTo(0);
+        assertThat(tracker.isTracking()).isFalse();
+    }
+
+    @Test
+    public void start_reportsPreviousAnimation_whenStillTracking() {
+        //given
+        FrameMetricsTracker tracker = new FrameMetricsTracker();
+        RecordingListener listener = new RecordingListener();
+        tracker.start(listener, true, 10 * FRAME_INTERVAL, FRAME_INTERVAL, START_TIME);
+        tracker.doFrame(START_TIME + FRAME_INTERVAL);
+
+        //when
+        tracker.start(listener, false, 10 * FRAME_INTERVAL, FRAME_INTERVAL, START_TIME + 2 * FRAME_INTERVAL);
+
+        //then
+        assertThat(listener.calls).isEqualTo(1);
+        assertThat(listener.show).isTrue();
+        assertThat(listener.frameCount).isEqualTo(1);
+        assertThat(tracker.isTracking()).isTrue();
+    }
+
+    private static final class RecordingListener implements StaggeredAnimationGroup.OnStaggerFrameMetricsListener {
+
+        int calls;
+        boolean show;
+        int frameCount;
+        int droppedFrames;
+        long maxFrameTimeNanos;
+        long durationNanos;
+        long expectedDurationNanos;
+
+        @Override
+        public void onStaggerFrameMetrics(boolean show, int frameCount, int droppedFrames,
+                                          long maxFrameTimeNanos, long durationNanos,
+                                          long expectedDurationNanos) {
+            this.calls++;
+            this.show = show;
+            this.frameCount = frameCount;
+            this.droppedFrames = droppedFrames;
+            this.maxFrameTimeNanos = maxFrameTimeNanos;
+            this.durationNanos = durationNanos;
+            this.expectedDurationNanos = expectedDurationNanos;
+        }
+    }
+}
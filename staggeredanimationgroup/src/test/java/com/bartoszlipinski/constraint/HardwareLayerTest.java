@@ -0,0 +1,212 @@
+package com.bartoszlipinski.constraint;
+
+import android.support.constraint.ConstraintLayout;
+import android.support.transition.Fade;
+import android.support.transition.Transition;
+import android.support.transition.TransitionSet;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static com.bartoszlipinski.constraint.internal.Utilities.countListeners;
+import static com.bartoszlipinski.constraint.internal.Utilities.prepareGroupInParent;
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class HardwareLayerTest {
+
+    private static final int GROUP_SIZE = 3;
+    private static final long START_DELAY = 100;
+
+    @Test
+    public void hardwareLayerListener_promotesView_afterStartDelay() {
+        //given
+        View view = new View(RuntimeEnvironment.application);
+        HardwareLayerListener listener = new HardwareLayerListener(view, new HardwareLayers());
+        Transition transition = new Fade().setStartDelay(START_DELAY);
+
+        //when
+        listener.onTransitionStart(transition);
+
+        //then
+        assertThat(view.getLayerType()).isEqualTo(View.LAYER_TYPE_NONE);
+        ShadowLooper.idleMainLooper(START_DELAY);
+        assertThat(view.getLayerType()).isEqualTo(View.LAYER_TYPE_HARDWARE);
+    }
+
+    @Test
+    public void hardwareLayerListener_restoresOriginalLayerType_onEnd() {
+        //given
+        View view = new View(RuntimeEnvironment.application);
+        view.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+        HardwareLayerListener listener = new HardwareLayerListener(view, new HardwareLayers());
+        Transition transition = new Fade();
+        listener.onTransitionStart(transition);
+        ShadowLooper.idleMainLooper();
+
+        //when
+        listener.onTransitionEnd(transition);
+
+        //then
+        assertThat(view.getLayerType()).isEqualTo(View.LAYER_TYPE_SOFTWARE);
+        assertThat(listener.isPromoted()).isFalse();
+    }
+
+    @Test
+    public void hardwareLayerListener_neverPromotesView_whenCancelledDuringStartDelay() {
+        //given
+        View view = new View(RuntimeEnvironment.application);
+        HardwareLayerListener listener = new HardwareLayerListener(view, new HardwareLayers());
+        Transition transition = new Fade().setStartDelay(START_DELAY);
+        listener.onTransitionStart(transition);
+
+        //when
+        listener.onTransitionCancel(transition);
+        ShadowLooper.idleMainLooper(START_DELAY);
+
+        //then
+        assertThat(view.getLayerType()).isEqualTo(View.LAYER_TYPE_NONE);
+    }
+
+    @Test
+    public void hardwareLayerListener_keepsHardwareLayer_setByUser() {
+        //given
+        View view = new View(RuntimeEnvironment.application);
+        view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        HardwareLayerListener listener = new HardwareLayerListener(view, new HardwareLayers());
+        Transition transition = new Fade();
+        listener.onTransitionStart(transition);
+        ShadowLooper.idleMainLooper();
+
+        //when
+        listener.onTransitionEnd(transition);
+
+        //then
+        assertThat(view.getLayerType()).isEqualTo(View.LAYER_TYPE_HARDWARE);
+    }
+
+    @Test
+    public void hardwareLayerListener_keepsPromotionOfNewerRun_whenSupersededRunEndsLate() {
+        //given
+        View view = new View(RuntimeEnvironment.application);
+        HardwareLayers hardwareLayers = new HardwareLayers();
+        HardwareLayerListener supersededRun = new HardwareLayerListener(view, hardwareLayers);
+        HardwareLayerListener newerRun = new HardwareLayerListener(view, hardwareLayers);
+        Transition transition = new Fade();
+        supersededRun.onTransitionStart(transition);
+        ShadowLooper.idleMainLooper();
+        newerRun.onTransitionStart(transition);
+        ShadowLooper.idleMainLooper();
+
+        //when
+        supersededRun.onTransitionEnd(transition);
+
+        //then
+        assertThat(view.getLayerType()).isEqualTo(View.LAYER_TYPE_HARDWARE);
+        assertThat(newerRun.isPromoted()).isTrue();
+        newerRun.onTransitionEnd(transition);
+        assertThat(view.getLayerType()).isEqualTo(View.LAYER_TYPE_NONE);
+        assertThat(hardwareLayers.isPromoted(view)).isFalse();
+    }
+
+    @Test
+    public void obtainStaggeredTransition_addsHardwareLayerListeners_toPerRunCloneOnly() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        group.setHardwareLayersEnabled(true);
+
+        //when
+        TransitionSet first = (TransitionSet) group.obtainStaggeredTransition(true, false);
+        TransitionSet second = (TransitionSet) group.obtainStaggeredTransition(true, false);
+
+        //then
+        TransitionSet prepared = group.obtainPreparedTransition(true, false);
+        assertThat(second).isNotSameAs(first);
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            assertThat(countListeners(first.getTransitionAt(i))).isEqualTo(1);
+            assertThat(countListeners(prepared.getTransitionAt(i))).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void animatorEngine_promotesOnlyAnimatingViews() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroup(parent);
+        group.show();
+
+        //when
+        // 50ms into the second view, the third one is just about to start
+        group.getAnimatorEngine().applyPlayTime(100);
+
+        //then
+        assertThat(parent.getChildAt(0).getLayerType()).isEqualTo(View.LAYER_TYPE_HARDWARE);
+        assertThat(parent.getChildAt(1).getLayerType()).isEqualTo(View.LAYER_TYPE_HARDWARE);
+        assertThat(parent.getChildAt(2).getLayerType()).isEqualTo(View.LAYER_TYPE_NONE);
+    }
+
+    @Test
+    public void animatorEngine_restoresLayers_whenPartialEnds() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroup(parent);
+        group.show();
+        group.getAnimatorEngine().applyPlayTime(100);
+
+        //when
+        // first view ends at 250ms
+        group.getAnimatorEngine().applyPlayTime(260);
+
+        //then
+        assertThat(parent.getChildAt(0).getLayerType()).isEqualTo(View.LAYER_TYPE_NONE);
+        assertThat(parent.getChildAt(1).getLayerType()).isEqualTo(View.LAYER_TYPE_HARDWARE);
+    }
+
+    @Test
+    public void animatorEngine_restoresLayers_whenCancelled() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroup(parent);
+        group.show();
+        group.getAnimatorEngine().applyPlayTime(100);
+
+        //when
+        group.hide();
+
+        //then
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            assertThat(parent.getChildAt(i).getLayerType()).isEqualTo(View.LAYER_TYPE_NONE);
+        }
+    }
+
+    @Test
+    public void animatorEngine_restoresLayers_whenDetached() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroup(parent);
+        group.show();
+        group.getAnimatorEngine().applyPlayTime(100);
+
+        //when
+        group.releaseStaggeredAnimation();
+
+        //then
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            assertThat(parent.getChildAt(i).getLayerType()).isEqualTo(View.LAYER_TYPE_NONE);
+        }
+    }
+
+    private static StaggeredAnimationGroup prepareGroup(ConstraintLayout parent) {
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        group.setStaggerEngine(StaggeredAnimationGroup.ENGINE_ANIMATOR);
+        group.setHardwareLayersEnabled(true);
+        return group;
+    }
+}
@@ -0,0 +1,88 @@
+package com.bartoszlipinski.constraint;
+
+import android.support.constraint.ConstraintLayout;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static com.bartoszlipinski.constraint.internal.Utilities.layOut;
+import static com.bartoszlipinski.constraint.internal.Utilities.prepareGroupInParent;
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class HideModeTest {
+
+    private static final int GROUP_SIZE = 3;
+    private static final int PARENT_SIZE = 500;
+
+    @Test
+    public void hideMode_isGone_whenGroupIsCreated() {
+        //given
+
+        //when
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+
+        //then
+        assertThat(group.hideMode).isEqualTo(StaggeredAnimationGroup.HIDE_MODE_GONE);
+        assertThat(group.getHiddenVisibility()).isEqualTo(View.GONE);
+    }
+
+    @Test
+    public void applyVisibility_hidesViewsRightAway_withoutRequestingLayout_whenModeIsInvisible() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        layOut(parent, PARENT_SIZE);
+        group.setHideMode(StaggeredAnimationGroup.HIDE_MODE_INVISIBLE);
+
+        //when
+        group.applyVisibility(false);
+
+        //then
+        assertThat(group.getVisibility()).isEqualTo(View.INVISIBLE);
+        for (int id = 1; id <= GROUP_SIZE; id++) {
+            assertThat(parent.getViewById(id).getVisibility()).isEqualTo(View.INVISIBLE);
+        }
+        assertThat(parent.isLayoutRequested()).isFalse();
+    }
+
+    @Test
+    public void applyVisibility_showsViewsRightAway_whenModeIsInvisible() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        layOut(parent, PARENT_SIZE);
+        group.setHideMode(StaggeredAnimationGroup.HIDE_MODE_INVISIBLE);
+        group.applyVisibility(false);
+
+        //when
+        group.applyVisibility(true);
+
+        //then
+        assertThat(group.getVisibility()).isEqualTo(View.VISIBLE);
+        for (int id = 1; id <= GROUP_SIZE; id++) {
+            assertThat(parent.getViewById(id).getVisibility()).isEqualTo(View.VISIBLE);
+        }
+        assertThat(parent.isLayoutRequested()).isFalse();
+    }
+
+    @Test
+    public void applyVisibility_requestsLayout_whenModeIsGone() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        layOut(parent, PARENT_SIZE);
+
+        //when
+        group.applyVisibility(false);
+
+        //then
+        assertThat(group.getVisibility()).isEqualTo(View.GONE);
+        assertThat(parent.isLayoutRequested()).isTrue();
+    }
+}
@@ -0,0 +1,162 @@
+package com.bartoszlipinski.constraint;
+
+import android.support.constraint.ConstraintLayout;
+import android.support.transition.Transition;
+import android.support.transition.TransitionSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static com.bartoszlipinski.constraint.internal.Utilities.prepareGroupInParent;
+import static com.bartoszlipinski.constraint.internal.Utilities.prepareSpiedGroup;
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class InterruptibleStaggerTest {
+
+    private static final StaggeredAnimationGroup.StaggerDelayProvider QUADRATIC_DELAYS =
+            new StaggeredAnimationGroup.StaggerDelayProvider() {
+                @Override
+                public long getStartDelay(int viewId, int indexInTransition, int count) {
+                    return indexInTransition * indexInTransition * 10;
+                }
+            };
+
+    @Test
+    public void interruptible_isFalse_asInitialState() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+
+        //when
+        // nothing to do here (this checks the initial state)
+
+        //then
+        assertThat(spiedGroup.interruptible).isFalse();
+    }
+
+    @Test
+    public void interruptible_isModified_when_setInterruptible_isCalled() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+
+        //when
+        spiedGroup.setInterruptible(true);
+
+        //then
+        assertThat(spiedGroup.interruptible).isTrue();
+    }
+
+    @Test
+    public void recordInFlightStagger_recordsTimingOfTheStartedTransition() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setReferencedIds(new int[]{1, 2, 3, 4});
+
+        //when
+        spiedGroup.recordInFlightStagger(true, true, 1000);
+
+        //then
+        InFlightStagger inFlight = spiedGroup.inFlightStagger;
+        assertThat(inFlight.timeline.count).isEqualTo(4);
+        assertThat(inFlight.isShowing).isTrue();
+        assertThat(inFlight.viewIds).asList().containsExactly(4, 3, 2, 1).inOrder();
+        assertThat(inFlight.timeline.startDelays).asList().containsExactly(0L, 50L, 100L, 150L).inOrder();
+        assertThat(inFlight.isRunning(1000 + 150 + 249)).isTrue();
+        assertThat(inFlight.isRunning(1000 + 150 + 250)).isFalse();
+    }
+
+    @Test
+    public void prepareInterruptingTransition_reversesOnlyStartedViews_fromTheirCurrentPosition() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setReferencedIds(new int[]{1, 2, 3, 4});
+        spiedGroup.recordInFlightStagger(true, false, 1000);
+
+        //when
+        TransitionSet transition =
+                (TransitionSet) spiedGroup.prepareInterruptingTransition(false, false, 1000 + 120);
+
+        //then
+        assertThat(transition.getTransitionCount()).isEqualTo(4);
+        assertPartial(transition.getTransitionAt(0), 3, 0, 20);
+        assertPartial(transition.getTransitionAt(1), 2, 50, 70);
+        assertPartial(transition.getTransitionAt(2), 1, 100, 120);
+        assertPartial(transition.getTransitionAt(3), 4, 0, 0);
+        assertThat(spiedGroup.inFlightStagger.isShowing).isFalse();
+    }
+
+    @Test
+    public void prepareInterruptingTransition_staggersStartedViews_throughDelayProvider() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setReferencedIds(new int[]{1, 2, 3, 4});
+        spiedGroup.recordInFlightStagger(true, false, 1000);
+        spiedGroup.setStaggerDelayProvider(QUADRATIC_DELAYS);
+
+        //when
+        TransitionSet transition =
+                (TransitionSet) spiedGroup.prepareInterruptingTransition(false, false, 1000 + 120);
+
+        //then
+        assertPartial(transition.getTransitionAt(0), 3, 0, 20);
+        assertPartial(transition.getTransitionAt(1), 2, 10, 70);
+        assertPartial(transition.getTransitionAt(2), 1, 40, 120);
+        assertPartial(transition.getTransitionAt(3), 4, 0, 0);
+    }
+
+    @Test
+    public void animatorEngine_reverse_staggersStartedViews_throughDelayProvider() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, 4);
+        group.setStaggerEngine(StaggeredAnimationGroup.ENGINE_ANIMATOR);
+        group.setInterruptible(true);
+        group.setStaggerDelayProvider(QUADRATIC_DELAYS);
+        group.show();
+        // all the views have started (the last one after 90ms), none has ended
+        ShadowLooper.idleMainLooper(150);
+
+        //when
+        group.hide();
+
+        //then
+        AnimatorStaggerEngine engine = group.getAnimatorEngine();
+        assertThat(engine.viewIds).asList().containsExactly(4, 3, 2, 1).inOrder();
+        assertThat(engine.timeline.startDelays[0]).isEqualTo(0L);
+        assertThat(engine.timeline.startDelays[1]).isEqualTo(10L);
+        assertThat(engine.timeline.startDelays[2]).isEqualTo(40L);
+        assertThat(engine.timeline.startDelays[3]).isEqualTo(90L);
+    }
+
+    @Test
+    public void inFlightStagger_reverse_givesWholeDuration_toSnappedViews() {
+        //given
+        InFlightStagger inFlight = new InFlightStagger();
+        inFlight.ensureCapacity(2);
+        inFlight.viewIds[0] = 1;
+        inFlight.viewIds[1] = 2;
+        inFlight.timeline.durations[0] = 100;
+        inFlight.timeline.durations[1] = 0;
+        inFlight.start(false, 2, 0);
+
+        //when
+        int startedCount = inFlight.reverse(10, 250);
+
+        //then
+        assertThat(startedCount).isEqualTo(2);
+        assertThat(inFlight.viewIds).asList().containsExactly(2, 1).inOrder();
+        assertThat(inFlight.timeline.durations).asList().containsExactly(250L, 10L).inOrder();
+        assertThat(inFlight.isShowing).isTrue();
+    }
+
+    private static void assertPartial(Transition partial, int viewId, long startDelay, long duration) {
+        assertThat(partial.getTargetIds()).containsExactly(viewId);
+        assertThat(partial.getStartDelay()).isEqualTo(startDelay);
+        assertThat(partial.getDuration()).isEqualTo(duration);
+    }
+}
@@ -0,0 +1,164 @@
+package com.bartoszlipinski.constraint;
+
+import android.animation.TimeInterpolator;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Plain JUnit (no Robolectric), the sampled interpolator doesn't touch the Android framework.
+ */
+public class SampledInterpolatorTest {
+
+    private static final int CHECKED_INPUTS = 100000;
+    private static final float MAX_ERROR = 0.0005f;
+
+    private static final TimeInterpolator QUADRATIC = new TimeInterpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            return input * input;
+        }
+    };
+    private static final TimeInterpolator SINE = new TimeInterpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            return (float) Math.sin(input * Math.PI / 2);
+        }
+    };
+    /**
+     * Fast-out-slow-in curve (0.4, 0, 0.2, 1), solved by bisection on every call, like
+     * {@code PathInterpolator} does.
+     */
+    private static final TimeInterpolator BEZIER = new CubicBezierInterpolator(0.4f, 0f, 0.2f, 1f);
+
+    @Test
+    public void of_returnsSameInstance_forSameInterpolator() {
+        //given
+        TimeInterpolator interpolator = new CubicBezierInterpolator(0.4f, 0f, 0.2f, 1f);
+
+        //when
+        SampledInterpolator first = SampledInterpolator.of(interpolator);
+        SampledInterpolator second = SampledInterpolator.of(interpolator);
+
+        //then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void of_returnsGivenInstance_whenAlreadySampled() {
+        //given
+        SampledInterpolator sampled = SampledInterpolator.of(QUADRATIC);
+
+        //when
+        SampledInterpolator resampled = SampledInterpolator.of(sampled);
+
+        //then
+        assertThat(resampled).isSameAs(sampled);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void of_throwsException_whenInterpolatorIsNull() {
+        SampledInterpolator.of(null);
+    }
+
+    @Test
+    public void getInterpolation_isExact_atEnds() {
+        //given
+        SampledInterpolator sampled = SampledInterpolator.of(BEZIER);
+
+        //when
+        float start = sampled.getInterpolation(0f);
+        float end = sampled.getInterpolation(1f);
+
+        //then
+        assertThat(start).isEqualTo(BEZIER.getInterpolation(0f));
+        assertThat(end).isEqualTo(BEZIER.getInterpolation(1f));
+    }
+
+    @Test
+    public void getInterpolation_clampsInput() {
+        //given
+        SampledInterpolator sampled = SampledInterpolator.of(QUADRATIC);
+
+        //when
+        float belowZero = sampled.getInterpolation(-1f);
+        float aboveOne = sampled.getInterpolation(2f);
+
+        //then
+        assertThat(belowZero).isEqualTo(0f);
+        assertThat(aboveOne).isEqualTo(1f);
+    }
+
+    @Test
+    public void getInterpolation_isExact_atSamples() {
+        //given
+        SampledInterpolator sampled = SampledInterpolator.of(SINE);
+
+        for (int i = 0; i <= SampledInterpolator.SAMPLE_INTERVALS; i++) {
+            //when
+            float input = (float) i / SampledInterpolator.SAMPLE_INTERVALS;
+
+            //then
+            assertThat(sampled.getInterpolation(input)).isWithin(1e-6f).of(SINE.getInterpolation(input));
+        }
+    }
+
+    @Test
+    public void getInterpolation_isAccurate_betweenSamples() {
+        TimeInterpolator[] interpolators = new TimeInterpolator[]{QUADRATIC, SINE, BEZIER};
+        for (TimeInterpolator interpolator : interpolators) {
+            //given
+            SampledInterpolator sampled = SampledInterpolator.of(interpolator);
+
+            //when
+            float maxError = 0f;
+            for (int i = 0; i <= CHECKED_INPUTS; i++) {
+                float input = (float) i / CHECKED_INPUTS;
+                maxError = Math.max(maxError,
+                        Math.abs(sampled.getInterpolation(input) - interpolator.getInterpolation(input)));
+            }
+
+            //then
+            assertThat(maxError).isLessThan(MAX_ERROR);
+        }
+    }
+
+    private static final class CubicBezierInterpolator implements TimeInterpolator {
+
+        private static final int BISECTION_STEPS = 24;
+
+        private final float x1;
+        private final float y1;
+        private final float x2;
+        private final float y2;
+
+        CubicBezierInterpolator(float x1, float y1, float x2, float y2) {
+            this.x1 = x1;
+            this.y1 = y1;
+            this.x2 = x2;
+            this.y2 = y2;
+        }
+
+        @Override
+        public float getInterpolation(float input) {
+            float low = 0f;
+            float high = 1f;
+            float t = input;
+            for (int i = 0; i < BISECTION_STEPS; i++) {
+                t = (low + high) / 2;
+                if (bezier(t, x1, x2) < input) {
+                    low = t;
+                } else {
+                    high = t;
+                }
+            }
+            return bezier(t, y1, y2);
+        }
+
+        private static float bezier(float t, float p1, float p2) {
+            float u = 1 - t;
+            return 3 * u * u * t * p1 + 3 * u * t * t * p2 + t * t * t;
+        }
+    }
+}
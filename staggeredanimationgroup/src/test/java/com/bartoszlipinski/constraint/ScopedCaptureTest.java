@@ -0,0 +1,126 @@
+package com.bartoszlipinski.constraint;
+
+import android.content.Context;
+import android.support.constraint.ConstraintLayout;
+import android.support.transition.Transition;
+import android.support.transition.TransitionSet;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE, sdk = 23)
+@RunWith(RobolectricTestRunner.class)
+public class ScopedCaptureTest {
+
+    private static final int SIBLINGS_COUNT = 500;
+    private static final int GROUP_SIZE = 10;
+
+    @Test
+    public void prepareStaggeredTransition_targetsGroupViews_whenScopedCaptureIsEnabled() {
+        //given
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        group.setReferencedIds(new int[]{1, 2, 3});
+        group.setScopedCaptureEnabled(true);
+
+        //when
+        Transition transition = group.prepareStaggeredTransition(true, false);
+
+        //then
+        assertThat(transition.getTargetIds()).containsExactly(1, 2, 3);
+        TransitionSet set = (TransitionSet) transition;
+        for (int i = 0; i < set.getTransitionCount(); i++) {
+            assertThat(set.getTransitionAt(i).getTargetIds()).hasSize(1);
+        }
+    }
+
+    @Test
+    public void prepareStaggeredTransition_hasNoTargets_whenScopedCaptureIsDisabled() {
+        //given
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        group.setReferencedIds(new int[]{1, 2, 3});
+
+        //when
+        Transition transition = group.prepareStaggeredTransition(true, false);
+
+        //then
+        assertThat(transition.getTargetIds()).isEmpty();
+    }
+
+    @Test
+    public void show_capturesOnly_groupViews_whenScopedCaptureIsEnabled() {
+        //given
+        CaptureCounter counter = new CaptureCounter();
+        StaggeredAnimationGroup group = prepareLaidOutGroup(counter, true);
+
+        //when
+        group.show();
+
+        //then
+        assertThat(counter.capturedViews).isAtMost(GROUP_SIZE);
+    }
+
+    @Test
+    public void show_capturesAllSiblings_whenScopedCaptureIsDisabled() {
+        //given
+        CaptureCounter counter = new CaptureCounter();
+        StaggeredAnimationGroup group = prepareLaidOutGroup(counter, false);
+
+        //when
+        group.show();
+
+        //then
+        assertThat(counter.capturedViews).isAtLeast(SIBLINGS_COUNT);
+    }
+
+    private static StaggeredAnimationGroup prepareLaidOutGroup(CaptureCounter counter, boolean scopedCapture) {
+        Context context = RuntimeEnvironment.application;
+        ConstraintLayout parent = new ConstraintLayout(context);
+        int[] groupIds = new int[GROUP_SIZE];
+        for (int i = 0; i < SIBLINGS_COUNT; i++) {
+            View view = new CaptureCountingView(context, counter);
+            view.setId(i + 1);
+            parent.addView(view);
+            if (i < GROUP_SIZE) {
+                groupIds[i] = view.getId();
+            }
+        }
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(context);
+        parent.addView(group);
+        group.setReferencedIds(groupIds);
+        group.setScopedCaptureEnabled(scopedCapture);
+        int spec = View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY);
+        parent.measure(spec, spec);
+        parent.layout(0, 0, 1000, 1000);
+        counter.capturedViews = 0;
+        return group;
+    }
+
+    private static final class CaptureCounter {
+        int capturedViews;
+    }
+
+    /**
+     * The transition framework queries the transition name of every view it stores captured values for.
+     */
+    private static final class CaptureCountingView extends View {
+
+        private final CaptureCounter counter;
+
+        CaptureCountingView(Context context, CaptureCounter counter) {
+            super(context);
+            this.counter = counter;
+        }
+
+        @Override
+        public String getTransitionName() {
+            counter.capturedViews++;
+            return super.getTransitionName();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.bartoszlipinski.constraint;
+
+import android.support.transition.TransitionSet;
+import android.view.animation.AccelerateInterpolator;
+import android.view.animation.LinearInterpolator;
+import android.view.animation.OvershootInterpolator;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class StaggerDelayProviderTest {
+
+    @Test
+    public void staggerDelayProvider_isTheDefaultInstance_whenGroupIsCreated() {
+        //given
+
+        //when
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+
+        //then
+        assertThat(group.staggerDelayProvider).isSameAs(group.defaultStaggerDelayProvider);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void setStaggerDelayProvider_throwsNpe_whenPassed_null_provider() {
+        //given
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        StaggeredAnimationGroup.StaggerDelayProvider provider = null;
+
+        //when
+        group.setStaggerDelayProvider(provider);
+
+        //then
+        // -> handled by `expected`
+    }
+
+    @Test
+    public void getStartDelays_isLinear_byDefault() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2, 3);
+
+        //when
+        long[] startDelays = group.getStartDelays(false);
+
+        //then
+        assertThat(startDelays).asList().containsExactly(0L, 50L, 100L).inOrder();
+    }
+
+    @Test
+    public void prepareStaggeredTransition_usesDelaysOfProvider() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2, 3);
+        group.setStaggerDelayProvider(new CountingDelayProvider());
+
+        //when
+        TransitionSet set = group.prepareStaggeredTransition(true, false);
+
+        //then
+        assertThat(set.getTransitionAt(0).getStartDelay()).isEqualTo(10);
+        assertThat(set.getTransitionAt(1).getStartDelay()).isEqualTo(21);
+        assertThat(set.getTransitionAt(2).getStartDelay()).isEqualTo(32);
+    }
+
+    @Test
+    public void getStartDelays_neverDecrease_whenDelaysOfProviderDo() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2, 3);
+        group.setStaggerDelayProvider(new CountingDelayProvider());
+
+        //when
+        // view ids in reversed order: 3, 2, 1, so the provider returns 30, 21 and 12
+        long[] startDelays = group.getStartDelays(true);
+        TransitionSet set = group.prepareStaggeredTransition(true, true);
+
+        //then
+        assertThat(startDelays).asList().containsExactly(30L, 30L, 30L).inOrder();
+        for (int i = 0; i < set.getTransitionCount(); i++) {
+            assertThat(set.getTransitionAt(i).getStartDelay()).isEqualTo(30);
+        }
+    }
+
+    @Test
+    public void getStartDelays_neverDecrease_alongNonMonotonicCurve() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2, 3);
+        group.setStaggerDelayProvider(StaggerDelays.interpolated(400, new OvershootInterpolator(4f)));
+
+        //when
+        long[] startDelays = group.getStartDelays(false);
+
+        //then
+        // the curve goes up to 550 in the middle and back to 400 at the end
+        assertThat(startDelays).asList().containsExactly(0L, 550L, 550L).inOrder();
+    }
+
+    @Test
+    public void getStartDelays_isComputedOnce_untilConfigurationChanges() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2, 3);
+        CountingDelayProvider provider = new CountingDelayProvider();
+        group.setStaggerDelayProvider(provider);
+
+        //when
+        group.getStartDelays(false);
+        group.computeIterationStartDelay(1, false);
+        group.computeTotalDuration();
+        int callsBeforeChange = provider.calls;
+        group.setPartialDuration(100);
+        group.getStartDelays(false);
+
+        //then
+        assertThat(callsBeforeChange).isEqualTo(3);
+        assertThat(provider.calls).isEqualTo(6);
+    }
+
+    @Test
+    public void getStartDelays_isRecomputed_whenIdsChange() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2, 3);
+        group.setStaggerDelayProvider(new CountingDelayProvider());
+        group.getStartDelays(false);
+
+        //when
+        group.setReferencedIds(new int[]{4, 5});
+        long[] startDelays = group.getStartDelays(false);
+
+        //then
+        assertThat(startDelays).asList().containsExactly(40L, 51L).inOrder();
+    }
+
+    @Test
+    public void computeStartDelay_clampsDelaysOfProvider_toMaxTotalDuration() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2, 3);
+        group.setStaggerDelayProvider(StaggerDelays.interpolated(1000, new LinearInterpolator()));
+        group.setMaxTotalDuration(StaggeredAnimationGroup.DEFAULT_PARTIAL_DURATION + 300);
+
+        //when
+        long[] startDelays = group.getStartDelays(false);
+
+        //then
+        assertThat(startDelays).asList().containsExactly(0L, 300L, 300L).inOrder();
+    }
+
+    @Test
+    public void interpolated_distributesDelaysAlongCurve() {
+        //given
+        StaggeredAnimationGroup.StaggerDelayProvider provider =
+                StaggerDelays.interpolated(400, new AccelerateInterpolator());
+
+        //when
+        long first = provider.getStartDelay(0, 0, 3);
+        long middle = provider.getStartDelay(0, 1, 3);
+        long last = provider.getStartDelay(0, 2, 3);
+
+        //then
+        assertThat(first).isEqualTo(0);
+        assertThat(middle).isEqualTo(100);
+        assertThat(last).isEqualTo(400);
+    }
+
+    @Test
+    public void jittered_isDeterministic_andWithinBounds() {
+        //given
+        StaggeredAnimationGroup.StaggerDelayProvider provider = StaggerDelays.jittered(50, 20, 42);
+        StaggeredAnimationGroup.StaggerDelayProvider sameSeedProvider = StaggerDelays.jittered(50, 20, 42);
+
+        //when
+        //then
+        for (int i = 0; i < 100; i++) {
+            long startDelay = provider.getStartDelay(0, i, 100);
+            assertThat(startDelay).isAtLeast(i * 50L);
+            assertThat(startDelay).isAtMost(i * 50L + 20);
+            assertThat(sameSeedProvider.getStartDelay(0, i, 100)).isEqualTo(startDelay);
+        }
+    }
+
+    private static StaggeredAnimationGroup prepareGroup(int... ids) {
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        group.setReferencedIds(ids);
+        return group;
+    }
+
+    private static final class CountingDelayProvider implements StaggeredAnimationGroup.StaggerDelayProvider {
+
+        int calls;
+
+        @Override
+        public long getStartDelay(int viewId, int indexInTransition, int count) {
+            calls++;
+            return viewId * 10 + indexInTransition;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.bartoszlipinski.constraint;
+
+import android.animation.Animator;
+import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
+import android.support.constraint.ConstraintLayout;
+import android.support.transition.Visibility;
+import android.view.Gravity;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class StaggerEffectsTest {
+
+    private static final int PARENT_SIZE = 1000;
+    private static final int VIEWS_COUNT = 100;
+    private static final int FRAMES_COUNT = 60;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void of_throwsException_whenNoEffectIsGiven() {
+        StaggerEffects.of(0, Gravity.BOTTOM);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void of_throwsException_whenSlideEdgeIsNotSupported() {
+        StaggerEffects.of(StaggerEffects.SLIDE, Gravity.CENTER);
+    }
+
+    @Test
+    public void onAppear_hidesViewRightAway() {
+        //given
+        ConstraintLayout parent = prepareLaidOutParent(1);
+        View view = parent.getChildAt(0);
+        Visibility transition = createEffect(StaggerEffects.FADE | StaggerEffects.SCALE);
+
+        //when
+        transition.onAppear(parent, view, null, null);
+
+        //then
+        assertThat(view.getAlpha()).isEqualTo(0f);
+        assertThat(view.getScaleX()).isEqualTo(EffectTransition.HIDDEN_SCALE);
+        assertThat(view.getScaleY()).isEqualTo(EffectTransition.HIDDEN_SCALE);
+    }
+
+    @Test
+    public void onAppear_animatesAllEffects_withSingleAnimator() {
+        //given
+        ConstraintLayout parent = prepareLaidOutParent(1);
+        View view = parent.getChildAt(0);
+        Visibility transition = createEffect(StaggerEffects.FADE | StaggerEffects.SLIDE | StaggerEffects.SCALE);
+
+        //when
+        Animator animator = transition.onAppear(parent, view, null, null);
+
+        //then
+        assertThat(animator).isInstanceOf(ObjectAnimator.class);
+        assertThat(((ObjectAnimator) animator).getValues()).hasLength(4);
+    }
+
+    @Test
+    public void onAppear_slidesViewFromBottomEdgeOfParent() {
+        //given
+        ConstraintLayout parent = prepareLaidOutParent(1);
+        View view = parent.getChildAt(0);
+        Visibility transition = createEffect(StaggerEffects.SLIDE);
+
+        //when
+        ValueAnimator animator = (ValueAnimator) transition.onAppear(parent, view, null, null);
+
+        //then
+        assertThat(view.getTranslationY()).isEqualTo((float) (PARENT_SIZE - view.getTop()));
+        animator.setCurrentPlayTime(animator.getDuration());
+        assertThat(view.getTranslationY()).isEqualTo(0f);
+    }
+
+    @Test
+    public void onDisappear_startsFromCurrentState() {
+        //given
+        ConstraintLayout parent = prepareLaidOutParent(1);
+        View view = parent.getChildAt(0);
+        view.setAlpha(0.5f);
+        Visibility transition = createEffect(StaggerEffects.FADE);
+
+        //when
+        ObjectAnimator animator = (ObjectAnimator) transition.onDisappear(parent, view, null, null);
+
+        //then
+        animator.setCurrentPlayTime(0);
+        assertThat(view.getAlpha()).isEqualTo(0.5f);
+    }
+
+    @Test
+    public void onDisappear_restoresRestState_whenEnded() {
+        //given
+        ConstraintLayout parent = prepareLaidOutParent(1);
+        View view = parent.getChildAt(0);
+        Visibility transition = createEffect(StaggerEffects.FADE | StaggerEffects.SLIDE | StaggerEffects.SCALE);
+        Animator animator = transition.onDisappear(parent, view, null, null);
+        animator.start();
+
+        //when
+        animator.end();
+
+        //then
+        assertThat(view.getAlpha()).isEqualTo(1f);
+        assertThat(view.getTranslationY()).isEqualTo(0f);
+        assertThat(view.getScaleX()).isEqualTo(1f);
+        assertThat(view.getScaleY()).isEqualTo(1f);
+    }
+
+    @Test
+    public void onAppear_endsInRestState_afterAllFrames() {
+        //given
+        ConstraintLayout parent = prepareLaidOutParent(VIEWS_COUNT);
+        Visibility[] effects = new Visibility[VIEWS_COUNT];
+        for (int i = 0; i < VIEWS_COUNT; i++) {
+            effects[i] = createEffect(StaggerEffects.FADE | StaggerEffects.SLIDE);
+        }
+
+        //when
+        runAllFrames(parent, effects);
+
+        //then
+        for (int i = 0; i < VIEWS_COUNT; i++) {
+            assertThat(parent.getChildAt(i).getAlpha()).isEqualTo(1f);
+            assertThat(parent.getChildAt(i).getTranslationY()).isEqualTo(0f);
+        }
+    }
+
+    /**
+     * Creates the animators and computes all the frames of them, like a running partial transition.
+     */
+    private static void runAllFrames(ConstraintLayout parent, Visibility[] transitions) {
+        ValueAnimator[] animators = new ValueAnimator[transitions.length];
+        for (int i = 0; i < transitions.length; i++) {
+            animators[i] = (ValueAnimator) transitions[i].onAppear(parent, parent.getChildAt(i), null, null);
+        }
+        for (int frame = 1; frame <= FRAMES_COUNT; frame++) {
+            for (ValueAnimator animator : animators) {
+                animator.setCurrentPlayTime(animator.getDuration() * frame / FRAMES_COUNT);
+            }
+        }
+    }
+
+    private static Visibility createEffect(int effects) {
+        return (Visibility) StaggerEffects.of(effects, Gravity.BOTTOM).createPartialTransition(true, 1, 0);
+    }
+
+    private static ConstraintLayout prepareLaidOutParent(int viewsCount) {
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        for (int i = 0; i < viewsCount; i++) {
+            View view = new View(RuntimeEnvironment.application);
+            view.setId(i + 1);
+            parent.addView(view, new ConstraintLayout.LayoutParams(10, 10));
+        }
+        int spec = View.MeasureSpec.makeMeasureSpec(PARENT_SIZE, View.MeasureSpec.EXACTLY);
+        parent.measure(spec, spec);
+        parent.layout(0, 0, PARENT_SIZE, PARENT_SIZE);
+        return parent;
+    }
+}
@@ -0,0 +1,235 @@
+package com.bartoszlipinski.constraint;
+
+import android.support.constraint.ConstraintLayout;
+import android.support.transition.Fade;
+import android.support.transition.Transition;
+import android.support.transition.TransitionSet;
+
+import com.bartoszlipinski.constraint.internal.RecordingStaggerListener;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static com.bartoszlipinski.constraint.internal.Utilities.countListeners;
+import static com.bartoszlipinski.constraint.internal.Utilities.layOut;
+import static com.bartoszlipinski.constraint.internal.Utilities.prepareGroupInParent;
+import static com.bartoszlipinski.constraint.internal.Utilities.prepareSpiedGroup;
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class StaggerListenerTest {
+
+    private static final int GROUP_SIZE = 3;
+    private static final int PARENT_SIZE = 500;
+    private static final int TOGGLES = 10;
+
+    @Test
+    public void staggerListener_isTheDefaultInstance_whenGroupIsCreated() {
+        //given
+
+        //when
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+
+        //then
+        assertThat(spiedGroup.staggerListener).isEqualTo(StaggeredAnimationGroup.defaultStaggerListener);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void setStaggerListener_throwsNpe_whenPassed_null_listener() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        StaggeredAnimationGroup.StaggerListener listener = null;
+
+        //when
+        spiedGroup.setStaggerListener(listener);
+
+        //then
+        // -> handled by `expected`
+    }
+
+    @Test
+    public void setStaggerListener_keepsPreparedTransitions() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        Transition first = spiedGroup.obtainPreparedTransition(true, false);
+
+        //when
+        spiedGroup.setStaggerListener(new RecordingStaggerListener());
+        Transition second = spiedGroup.obtainPreparedTransition(true, false);
+
+        //then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void obtainStaggeredTransition_returnsListenedClone_ofPreparedTransition_whenListenerIsSet() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setStaggerListener(new RecordingStaggerListener());
+
+        //when
+        Transition first = spiedGroup.obtainStaggeredTransition(true, false);
+        Transition second = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //then
+        TransitionSet prepared = spiedGroup.obtainPreparedTransition(true, false);
+        assertThat(first).isNotSameAs(prepared);
+        assertThat(second).isNotSameAs(first);
+        assertThat(countListeners(first)).isEqualTo(1);
+        assertThat(countListeners(prepared)).isEqualTo(0);
+    }
+
+    @Test
+    public void toggling_doesNotAccumulateListeners_onPreparedTransitions() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        layOut(parent, PARENT_SIZE);
+        group.setStaggerListener(new RecordingStaggerListener());
+        toggle(group, parent);
+        TransitionSet preparedHide = group.obtainPreparedTransition(false, false);
+        TransitionSet preparedShow = group.obtainPreparedTransition(true, false);
+
+        //when
+        for (int i = 0; i < TOGGLES; i++) {
+            toggle(group, parent);
+        }
+
+        //then
+        for (TransitionSet prepared : new TransitionSet[]{preparedHide, preparedShow}) {
+            assertThat(countListeners(prepared)).isEqualTo(0);
+            for (int i = 0; i < prepared.getTransitionCount(); i++) {
+                assertThat(countListeners(prepared.getTransitionAt(i))).isEqualTo(0);
+            }
+        }
+        assertThat(group.obtainPreparedTransition(false, false)).isSameAs(preparedHide);
+        assertThat(group.obtainPreparedTransition(true, false)).isSameAs(preparedShow);
+    }
+
+    @Test
+    public void staggerTransitionListener_dispatchesStartAndEnd() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        RecordingStaggerListener listener = new RecordingStaggerListener();
+        spiedGroup.setStaggerListener(listener);
+        StaggerTransitionListener transitionListener =
+                new StaggerTransitionListener(spiedGroup, true, spiedGroup.staggerRun);
+        Transition testTransition = new Fade();
+
+        //when
+        transitionListener.onTransitionStart(testTransition);
+        transitionListener.onTransitionEnd(testTransition);
+
+        //then
+        assertThat(listener.events).isEqualTo("start(true) end(true, false) ");
+    }
+
+    @Test
+    public void staggerTransitionListener_dispatchesCancelledEnd_whenCancelled() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        RecordingStaggerListener listener = new RecordingStaggerListener();
+        spiedGroup.setStaggerListener(listener);
+        StaggerTransitionListener transitionListener =
+                new StaggerTransitionListener(spiedGroup, false, spiedGroup.staggerRun);
+        Transition testTransition = new Fade();
+
+        //when
+        transitionListener.onTransitionStart(testTransition);
+        transitionListener.onTransitionCancel(testTransition);
+        transitionListener.onTransitionEnd(testTransition);
+
+        //then
+        assertThat(listener.events).isEqualTo("start(false) end(false, true) ");
+    }
+
+    @Test
+    public void staggerTransitionListener_dispatchesCancelledEnd_whenSupersededByAnotherRun() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        RecordingStaggerListener listener = new RecordingStaggerListener();
+        spiedGroup.setStaggerListener(listener);
+        StaggerTransitionListener transitionListener =
+                new StaggerTransitionListener(spiedGroup, false, spiedGroup.staggerRun);
+        Transition testTransition = new Fade();
+        transitionListener.onTransitionStart(testTransition);
+
+        //when
+        spiedGroup.beginStaggerRun();
+        transitionListener.onTransitionEnd(testTransition);
+
+        //then
+        assertThat(listener.events).isEqualTo("start(false) end(false, true) ");
+    }
+
+    @Test
+    public void staggerTransitionListener_dispatchesEndOfEachRun_whenRunsOverlap() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        RecordingStaggerListener listener = new RecordingStaggerListener();
+        spiedGroup.setStaggerListener(listener);
+        StaggerTransitionListener hideListener =
+                new StaggerTransitionListener(spiedGroup, false, spiedGroup.staggerRun);
+        Transition hideTransition = new Fade();
+        hideListener.onTransitionStart(hideTransition);
+        spiedGroup.beginStaggerRun();
+        StaggerTransitionListener showListener =
+                new StaggerTransitionListener(spiedGroup, true, spiedGroup.staggerRun);
+        Transition showTransition = new Fade();
+        showListener.onTransitionStart(showTransition);
+
+        //when
+        hideListener.onTransitionEnd(hideTransition);
+        showListener.onTransitionEnd(showTransition);
+
+        //then
+        assertThat(listener.events)
+                .isEqualTo("start(false) start(true) end(false, true) end(true, false) ");
+    }
+
+    @Test
+    public void staggerTransitionListener_ignoresCancel_whenNotRunning() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        RecordingStaggerListener listener = new RecordingStaggerListener();
+        spiedGroup.setStaggerListener(listener);
+        StaggerTransitionListener transitionListener =
+                new StaggerTransitionListener(spiedGroup, true, spiedGroup.staggerRun);
+        Transition testTransition = new Fade();
+        transitionListener.onTransitionStart(testTransition);
+        transitionListener.onTransitionEnd(testTransition);
+
+        //when
+        transitionListener.onTransitionCancel(testTransition);
+        transitionListener.onTransitionEnd(testTransition);
+
+        //then
+        assertThat(listener.events).isEqualTo("start(true) end(true, false) ");
+    }
+
+    @Test
+    public void partialTransitionListener_dispatchesPartialEnd_withViewIdAndIndex() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        RecordingStaggerListener listener = new RecordingStaggerListener();
+        spiedGroup.setStaggerListener(listener);
+        PartialTransitionListener transitionListener = new PartialTransitionListener(spiedGroup, 123, 4);
+
+        //when
+        transitionListener.onTransitionEnd(new Fade());
+
+        //then
+        assertThat(listener.events).isEqualTo("partialEnd(123, 4) ");
+    }
+
+    private static void toggle(StaggeredAnimationGroup group, ConstraintLayout parent) {
+        group.hide();
+        parent.getViewTreeObserver().dispatchOnPreDraw();
+        group.show();
+        parent.getViewTreeObserver().dispatchOnPreDraw();
+    }
+}
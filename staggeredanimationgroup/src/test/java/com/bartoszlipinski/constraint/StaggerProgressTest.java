@@ -0,0 +1,164 @@
+package com.bartoszlipinski.constraint;
+
+import android.support.constraint.ConstraintLayout;
+import android.view.View;
+import android.view.animation.LinearInterpolator;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static com.bartoszlipinski.constraint.internal.Utilities.prepareGroupInParent;
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class StaggerProgressTest {
+
+    private static final int GROUP_SIZE = 3;
+    // 2 * 50 + 250
+    private static final long TOTAL_DURATION = 350;
+
+    @Test
+    public void setStaggerProgress_zero_hidesAllViews() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroup(parent);
+
+        //when
+        group.setStaggerProgress(0f);
+
+        //then
+        assertThat(group.getVisibility()).isEqualTo(View.VISIBLE);
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            assertThat(parent.getChildAt(i).getAlpha()).isEqualTo(0f);
+        }
+    }
+
+    @Test
+    public void setStaggerProgress_usesTimingOfStaggeredShow() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroup(parent);
+
+        //when
+        group.setStaggerProgress(0.5f);
+
+        //then
+        // play time 175: 175/250, 125/250 and 75/250 of the partial duration
+        assertThat(parent.getChildAt(0).getAlpha()).isWithin(0.01f).of(0.7f);
+        assertThat(parent.getChildAt(1).getAlpha()).isWithin(0.01f).of(0.5f);
+        assertThat(parent.getChildAt(2).getAlpha()).isWithin(0.01f).of(0.3f);
+    }
+
+    @Test
+    public void setStaggerProgress_clampsProgress() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroup(parent);
+
+        //when
+        group.setStaggerProgress(2f);
+
+        //then
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            assertThat(parent.getChildAt(i).getAlpha()).isEqualTo(1f);
+        }
+    }
+
+    @Test
+    public void settleStaggerProgress_showsGroup_whenPastHalf() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroup(parent);
+        group.setStaggerProgress(0.6f);
+
+        //when
+        group.settleStaggerProgress();
+        ShadowLooper.idleMainLooper(TOTAL_DURATION);
+
+        //then
+        assertThat(group.getVisibility()).isEqualTo(View.VISIBLE);
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            assertThat(parent.getChildAt(i).getAlpha()).isEqualTo(1f);
+        }
+    }
+
+    @Test
+    public void flingStaggerProgress_hidesGroup_whenVelocityIsNegative() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroup(parent);
+        group.setStaggerProgress(0.6f);
+
+        //when
+        group.flingStaggerProgress(-10f);
+        ShadowLooper.idleMainLooper(TOTAL_DURATION);
+
+        //then
+        assertThat(group.getVisibility()).isEqualTo(View.GONE);
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            assertThat(parent.getChildAt(i).getVisibility()).isEqualTo(View.GONE);
+            assertThat(parent.getChildAt(i).getAlpha()).isEqualTo(1f);
+        }
+    }
+
+    @Test
+    public void show_stopsProgressDrivenStagger() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroup(parent);
+        group.setStaggerProgress(0.5f);
+
+        //when
+        group.show();
+
+        //then
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            assertThat(parent.getChildAt(i).getAlpha()).isEqualTo(1f);
+        }
+    }
+
+    @Test
+    public void setStaggerProgress_interpolatesLinearly_whenPartialInterpolatorIsNull() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroup(parent);
+        group.setPartialInterpolator(null);
+
+        //when
+        group.setStaggerProgress(0.5f);
+
+        //then
+        assertThat(parent.getChildAt(0).getAlpha()).isWithin(0.01f).of(0.7f);
+        assertThat(parent.getChildAt(1).getAlpha()).isWithin(0.01f).of(0.5f);
+        assertThat(parent.getChildAt(2).getAlpha()).isWithin(0.01f).of(0.3f);
+    }
+
+    @Test
+    public void animatorEngine_interpolatesLinearly_whenPartialInterpolatorIsNull() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroup(parent);
+        group.setPartialInterpolator(null);
+        group.setStaggerEngine(StaggeredAnimationGroup.ENGINE_ANIMATOR);
+
+        //when
+        group.show();
+        group.getAnimatorEngine().applyPlayTime(TOTAL_DURATION / 2);
+
+        //then
+        assertThat(parent.getChildAt(0).getAlpha()).isWithin(0.01f).of(0.7f);
+        assertThat(parent.getChildAt(1).getAlpha()).isWithin(0.01f).of(0.5f);
+        assertThat(parent.getChildAt(2).getAlpha()).isWithin(0.01f).of(0.3f);
+    }
+
+    private static StaggeredAnimationGroup prepareGroup(ConstraintLayout parent) {
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        group.setPartialInterpolator(new LinearInterpolator());
+        return group;
+    }
+}
@@ -0,0 +1,202 @@
+package com.bartoszlipinski.constraint;
+
+import android.animation.TimeInterpolator;
+
+import org.junit.Test;
+
+import static com.bartoszlipinski.constraint.StaggerTimeline.NO_MAX_TOTAL_DURATION;
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Plain JUnit (no Robolectric), the timeline doesn't touch the Android framework.
+ */
+public class StaggerTimelineTest {
+
+    private static final int LARGE_COUNT = 100000;
+    private static final TimeInterpolator QUADRATIC = new TimeInterpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            return input * input;
+        }
+    };
+
+    // partialProgress
+    @Test
+    public void partialProgress_isZero_beforeViewsDelayPasses() {
+        //given
+        long testPlayTime = 99;
+
+        //when
+        float progress = StaggerTimeline.partialProgress(testPlayTime, 100, 250);
+
+        //then
+        assertThat(progress).isEqualTo(0f);
+    }
+
+    @Test
+    public void partialProgress_isLinear_duringViewsPartialDuration() {
+        //given
+        long testPlayTime = 100 + 125;
+
+        //when
+        float progress = StaggerTimeline.partialProgress(testPlayTime, 100, 250);
+
+        //then
+        assertThat(progress).isWithin(0.001f).of(0.5f);
+    }
+
+    @Test
+    public void partialProgress_isOne_afterViewsPartialDuration() {
+        //given
+        long testPlayTime = 100 + 250;
+
+        //when
+        float progress = StaggerTimeline.partialProgress(testPlayTime, 100, 250);
+
+        //then
+        assertThat(progress).isEqualTo(1f);
+    }
+
+    @Test
+    public void partialProgress_isOne_forZeroPartialDuration() {
+        //given
+        long testPlayTime = 1;
+
+        //when
+        float progress = StaggerTimeline.partialProgress(testPlayTime, 0, 0);
+
+        //then
+        assertThat(progress).isEqualTo(1f);
+    }
+
+    // totalDuration
+    @Test
+    public void totalDuration_isZero_forEmptyGroup() {
+        assertThat(StaggerTimeline.totalDuration(new long[0], new long[0], 0)).isEqualTo(0);
+    }
+
+    @Test
+    public void totalDuration_includesAllDelays_andSinglePartialDuration() {
+        long[] testDelays = new long[]{0, 50, 100, 150};
+        long[] testDurations = new long[]{250, 250, 250, 250};
+
+        assertThat(StaggerTimeline.totalDuration(testDelays, testDurations, 4)).isEqualTo(3 * 50 + 250);
+    }
+
+    // startDelay
+    @Test
+    public void startDelay_isLinear_withoutMaxTotalDuration() {
+        assertThat(StaggerTimeline.startDelay(3, 4, 50, 250, NO_MAX_TOTAL_DURATION, null)).isEqualTo(150);
+    }
+
+    @Test
+    public void startDelay_isLinear_whenStaggerFitsMaxTotalDuration() {
+        assertThat(StaggerTimeline.startDelay(3, 4, 50, 250, 400, null)).isEqualTo(150);
+    }
+
+    @Test
+    public void startDelay_isCompressed_whenStaggerExceedsMaxTotalDuration() {
+        assertThat(StaggerTimeline.startDelay(2, 5, 50, 250, 350, null)).isEqualTo(50);
+        assertThat(StaggerTimeline.startDelay(4, 5, 50, 250, 350, null)).isEqualTo(100);
+    }
+
+    @Test
+    public void startDelay_followsCurve_whenCompressed() {
+        assertThat(StaggerTimeline.startDelay(1, 3, 300, 250, 650, QUADRATIC)).isEqualTo(100);
+    }
+
+    @Test
+    public void effectivePartialDuration_isCappedByMaxTotalDuration() {
+        assertThat(StaggerTimeline.effectivePartialDuration(250, NO_MAX_TOTAL_DURATION)).isEqualTo(250);
+        assertThat(StaggerTimeline.effectivePartialDuration(250, 200)).isEqualTo(200);
+    }
+
+    // reverse
+    @Test
+    public void reverse_reversesStartedViews_andSnapsTheRest() {
+        //given
+        StaggerTimeline timeline = prepareLinearTimeline(4, 50, 250);
+
+        //when
+        int startedCount = timeline.reverse(120, 250);
+
+        //then
+        assertThat(startedCount).isEqualTo(3);
+        assertThat(timeline.durations).asList().containsExactly(20L, 70L, 120L, 0L).inOrder();
+    }
+
+    // properties
+    @Test
+    public void compressedStagger_neverExceedsMaxTotalDuration_forLargeCount() {
+        //given
+        int maxTotalDuration = 1000;
+        StaggerTimeline timeline = new StaggerTimeline();
+        timeline.setCount(LARGE_COUNT);
+
+        //when
+        for (int i = 0; i < LARGE_COUNT; i++) {
+            timeline.startDelays[i] = StaggerTimeline.startDelay(i, LARGE_COUNT, 50, 250, maxTotalDuration, QUADRATIC);
+            timeline.durations[i] = 250;
+        }
+
+        //then
+        assertThat(timeline.totalDuration()).isAtMost((long) maxTotalDuration);
+        for (int i = 1; i < LARGE_COUNT; i++) {
+            assertThat(timeline.startDelays[i] >= timeline.startDelays[i - 1]).isTrue();
+        }
+    }
+
+    @Test
+    public void progress_isMonotonic_andStartedViewsMatchProgress_forLargeCount() {
+        //given
+        StaggerTimeline timeline = prepareLinearTimeline(LARGE_COUNT, 1, 250);
+
+        //when
+        long playTime = LARGE_COUNT / 2;
+        int startedCount = timeline.startedCount(playTime);
+
+        //then
+        for (int i = 0; i < LARGE_COUNT; i++) {
+            float progress = timeline.progress(i, playTime);
+            assertThat(progress > 0f).isEqualTo(i < startedCount);
+            if (i > 0) {
+                assertThat(progress <= timeline.progress(i - 1, playTime)).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void reverse_endsEveryStartedView_atTheMomentOfReversal_forLargeCount() {
+        //given
+        StaggerTimeline timeline = prepareLinearTimeline(LARGE_COUNT, 1, 250);
+        long playTime = 5000;
+        float[] progressBefore = new float[LARGE_COUNT];
+        for (int i = 0; i < LARGE_COUNT; i++) {
+            progressBefore[i] = timeline.progress(i, playTime);
+        }
+
+        //when
+        int startedCount = timeline.reverse(playTime, 250);
+
+        //then
+        // the most recently started view goes first and animates back for as long as it was animating
+        for (int i = 0; i < startedCount; i++) {
+            float expectedDuration = progressBefore[startedCount - 1 - i] * 250;
+            assertThat((float) timeline.durations[i]).isWithin(0.5f).of(expectedDuration);
+        }
+        for (int i = startedCount; i < LARGE_COUNT; i++) {
+            assertThat(timeline.durations[i]).isEqualTo(0L);
+        }
+    }
+
+    private static StaggerTimeline prepareLinearTimeline(int count, int partialDelay, long partialDuration) {
+        StaggerTimeline timeline = new StaggerTimeline();
+        timeline.setCount(count);
+        for (int i = 0; i < count; i++) {
+            timeline.startDelays[i] = StaggerTimeline.startDelay(i, count, partialDelay, partialDuration,
+                    NO_MAX_TOTAL_DURATION, null);
+            timeline.durations[i] = partialDuration;
+        }
+        return timeline;
+    }
+}
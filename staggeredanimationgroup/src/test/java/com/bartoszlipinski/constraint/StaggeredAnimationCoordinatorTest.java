@@ -0,0 +1,187 @@
+package com.bartoszlipinski.constraint;
+
+import android.support.constraint.ConstraintLayout;
+import android.support.transition.Fade;
+import android.support.transition.Transition;
+import android.support.transition.TransitionSet;
+import android.view.View;
+import android.view.animation.AnimationUtils;
+
+import com.bartoszlipinski.constraint.internal.RecordingStaggerListener;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static com.bartoszlipinski.constraint.internal.Utilities.prepareGroupInParent;
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class StaggeredAnimationCoordinatorTest {
+
+    @Test(expected = NullPointerException.class)
+    public void addGroup_throwsNpe_whenPassed_null_group() {
+        //given
+        StaggeredAnimationCoordinator coordinator = new StaggeredAnimationCoordinator();
+
+        //when
+        coordinator.addGroup(null, 0);
+
+        //then
+        // -> handled by `expected`
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addGroup_throwsIae_whenPassed_negativeOffset() {
+        //given
+        StaggeredAnimationCoordinator coordinator = new StaggeredAnimationCoordinator();
+
+        //when
+        coordinator.addGroup(prepareGroup(1), -1);
+
+        //then
+        // -> handled by `expected`
+    }
+
+    @Test
+    public void obtainStaggeredTransition_mergesGroupTransitions_withOffsets() {
+        //given
+        StaggeredAnimationCoordinator coordinator = new StaggeredAnimationCoordinator();
+        coordinator.addGroup(prepareGroup(1, 2, 3), 0);
+        coordinator.addGroup(prepareGroup(4, 5), 20);
+        coordinator.addGroupSequentially(prepareGroup(6, 7));
+
+        //when
+        TransitionSet transition = (TransitionSet) coordinator.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(transition.getTransitionCount()).isEqualTo(3);
+        assertStartDelays((TransitionSet) transition.getTransitionAt(0), 0, 50, 100);
+        assertStartDelays((TransitionSet) transition.getTransitionAt(1), 20, 70);
+        // second group ends at 20 + 50 + 250
+        assertStartDelays((TransitionSet) transition.getTransitionAt(2), 320, 370);
+    }
+
+    @Test
+    public void obtainStaggeredTransition_doesNotModify_groupsTransitions() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2);
+        StaggeredAnimationCoordinator coordinator = new StaggeredAnimationCoordinator();
+        coordinator.addGroup(group, 100);
+
+        //when
+        coordinator.obtainStaggeredTransition(true, false);
+
+        //then
+        assertStartDelays((TransitionSet) group.obtainStaggeredTransition(true, false), 0, 50);
+    }
+
+    @Test
+    public void obtainStaggeredTransition_returns_theSameInstance_forRepeatedCalls() {
+        //given
+        StaggeredAnimationCoordinator coordinator = new StaggeredAnimationCoordinator();
+        coordinator.addGroup(prepareGroup(1, 2), 0);
+
+        //when
+        Transition first = coordinator.obtainStaggeredTransition(false, true);
+        Transition second = coordinator.obtainStaggeredTransition(false, true);
+
+        //then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void obtainStaggeredTransition_returns_newInstance_whenGroupsTransitionChanges() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup(1, 2);
+        StaggeredAnimationCoordinator coordinator = new StaggeredAnimationCoordinator();
+        coordinator.addGroup(group, 0);
+        Transition first = coordinator.obtainStaggeredTransition(true, false);
+
+        //when
+        group.setPartialDelay(10);
+        Transition second = coordinator.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    public void hide_switchesGroupRightAway_whenItsAnimationsAreDisabled() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup skippedGroup = prepareGroupInParent(parent, 2);
+        StaggeredAnimationGroup animatedGroup = prepareGroup(1, 2);
+        parent.addView(animatedGroup);
+        skippedGroup.setAnimationsEnabled(false);
+        RecordingStaggerListener listener = new RecordingStaggerListener();
+        skippedGroup.setStaggerListener(listener);
+        StaggeredAnimationCoordinator coordinator = new StaggeredAnimationCoordinator();
+        coordinator.addGroup(skippedGroup, 0);
+        coordinator.addGroupSequentially(animatedGroup);
+
+        //when
+        coordinator.hide();
+
+        //then
+        assertThat(skippedGroup.getVisibility()).isEqualTo(View.GONE);
+        assertThat(listener.events).isEqualTo("start(false) end(false, false) ");
+        assertThat(skippedGroup.preparedTransitions).asList().containsExactly(null, null, null, null);
+        TransitionSet transition = (TransitionSet) coordinator.obtainStaggeredTransition(false, false);
+        assertThat(transition.getTransitionCount()).isEqualTo(1);
+        // the skipped group takes no time
+        assertStartDelays((TransitionSet) transition.getTransitionAt(0), 0, 50);
+    }
+
+    @Test
+    public void hide_recordsRunOfInterruptibleGroup_withItsStartOffset() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, 2);
+        group.setInterruptible(true);
+        StaggeredAnimationCoordinator coordinator = new StaggeredAnimationCoordinator();
+        coordinator.addGroup(group, 100);
+        long now = AnimationUtils.currentAnimationTimeMillis();
+
+        //when
+        coordinator.hide();
+
+        //then
+        assertThat(group.inFlightStagger.isShowing).isFalse();
+        assertThat(group.inFlightStagger.startTime).isEqualTo(now + 100);
+        assertThat(group.inFlightStagger.isRunning(now)).isTrue();
+    }
+
+    @Test
+    public void offsetStartDelays_offsetsAllNestedTransitions() {
+        //given
+        TransitionSet outer = new TransitionSet();
+        TransitionSet inner = new TransitionSet();
+        inner.addTransition(new Fade().setStartDelay(10));
+        outer.addTransition(inner);
+        outer.addTransition(new Fade());
+
+        //when
+        StaggeredAnimationCoordinator.offsetStartDelays(outer, 100);
+
+        //then
+        assertThat(inner.getTransitionAt(0).getStartDelay()).isEqualTo(110);
+        assertThat(outer.getTransitionAt(1).getStartDelay()).isEqualTo(100);
+    }
+
+    private static void assertStartDelays(TransitionSet groupTransition, long... startDelays) {
+        assertThat(groupTransition.getTransitionCount()).isEqualTo(startDelays.length);
+        for (int i = 0; i < startDelays.length; i++) {
+            assertThat(groupTransition.getTransitionAt(i).getStartDelay()).isEqualTo(startDelays[i]);
+        }
+    }
+
+    private static StaggeredAnimationGroup prepareGroup(int... ids) {
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        group.setReferencedIds(ids);
+        return group;
+    }
+}
@@ -1,18 +1,22 @@
 package com.bartoszlipinski.constraint;
 
 import android.animation.TimeInterpolator;
+import android.support.constraint.ConstraintLayout;
 import android.support.transition.AutoTransition;
 import android.support.transition.Fade;
 import android.support.transition.Transition;
 import android.support.transition.TransitionSet;
 import android.support.v4.view.animation.LinearOutSlowInInterpolator;
+import android.view.View;
 import android.view.animation.Interpolator;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.bartoszlipinski.constraint.internal.Utilities.prepareSpiedGroup;
@@ -72,6 +76,177 @@ public class StaggeredAnimationGroupTest {
         assertThat(filtered).isEqualTo(filtered);
     }
 
+    // obtainStaggeredTransition
+    @Test
+    public void obtainStaggeredTransition_returns_theSameInstance_forRepeatedCalls() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+
+        //when
+        Transition first = spiedGroup.obtainStaggeredTransition(true, false);
+        Transition second = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void obtainStaggeredTransition_returns_differentInstances_forDifferentParams() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+
+        //when
+        Transition showing = spiedGroup.obtainStaggeredTransition(true, false);
+        Transition showingReversed = spiedGroup.obtainStaggeredTransition(true, true);
+        Transition hiding = spiedGroup.obtainStaggeredTransition(false, false);
+        Transition hidingReversed = spiedGroup.obtainStaggeredTransition(false, true);
+
+        //then
+        assertThat(showing).isNotSameAs(showingReversed);
+        assertThat(showing).isNotSameAs(hiding);
+        assertThat(showing).isNotSameAs(hidingReversed);
+        assertThat(hiding).isNotSameAs(hidingReversed);
+    }
+
+    @Test
+    public void obtainStaggeredTransition_callsFactory_onlyOnce_forRepeatedCalls() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setReferencedIds(new int[]{1, 2, 3});
+        StaggeredAnimationGroup.PartialTransitionFactory spiedFactory =
+                spy(new StaggeredAnimationGroup.PartialTransitionFactory() {
+                    @Override
+                    public Transition createPartialTransition(boolean show, int viewId, int indexInTransition) {
+                        return new Fade();
+                    }
+                });
+        spiedGroup.setPartialTransitionFactory(spiedFactory);
+
+        //when
+        spiedGroup.obtainStaggeredTransition(true, false);
+        spiedGroup.obtainStaggeredTransition(true, false);
+        spiedGroup.obtainStaggeredTransition(true, false);
+
+        //then
+        verify(spiedFactory, times(3))
+                .createPartialTransition(anyBoolean(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void obtainStaggeredTransition_returns_newInstance_afterReferencedIdsChange() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setReferencedIds(new int[]{1, 2, 3});
+        Transition first = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //when
+        spiedGroup.setReferencedIds(new int[]{1, 2});
+        Transition second = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    public void obtainStaggeredTransition_returns_newInstance_afterPartialDelayChange() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        Transition first = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //when
+        spiedGroup.setPartialDelay(100);
+        Transition second = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    public void obtainStaggeredTransition_returns_newInstance_afterPartialDurationChange() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        Transition first = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //when
+        spiedGroup.setPartialDuration(100);
+        Transition second = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    public void obtainStaggeredTransition_returns_newInstance_afterPartialInterpolatorChange() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        Transition first = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //when
+        spiedGroup.setPartialInterpolator(new LinearOutSlowInInterpolator());
+        Transition second = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    public void obtainStaggeredTransition_returns_newInstance_afterFactoryChange() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        Transition first = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //when
+        spiedGroup.clearPartialTransitionFactory();
+        Transition second = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    public void obtainStaggeredTransition_passesCloneOfCachedTransition_toPreparedListener_onEveryCall() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        final List<TransitionSet> preparedSets = new ArrayList<>();
+        spiedGroup.setOnTransitionPreparedListener(new StaggeredAnimationGroup.OnTransitionPreparedListener() {
+            @Override
+            public TransitionSet onStaggeredTransitionPrepared(TransitionSet transition, boolean show, boolean inReversedOrder) {
+                preparedSets.add(transition);
+                return transition;
+            }
+        });
+
+        //when
+        Transition first = spiedGroup.obtainStaggeredTransition(true, false);
+        Transition second = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //then
+        TransitionSet cached = spiedGroup.obtainPreparedTransition(true, false);
+        assertThat(preparedSets).containsExactly(first, second).inOrder();
+        assertThat(second).isNotSameAs(first);
+        assertThat(first).isNotSameAs(cached);
+        assertThat(second).isNotSameAs(cached);
+    }
+
+    @Test
+    public void obtainStaggeredTransition_returns_cachedTransition_afterListenerIsCleared() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setOnTransitionPreparedListener(new StaggeredAnimationGroup.OnTransitionPreparedListener() {
+            @Override
+            public TransitionSet onStaggeredTransitionPrepared(TransitionSet transition, boolean show, boolean inReversedOrder) {
+                return transition;
+            }
+        });
+
+        //when
+        spiedGroup.clearOnTransitionPreparedListener();
+        Transition transition = spiedGroup.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(transition).isSameAs(spiedGroup.obtainPreparedTransition(true, false));
+    }
+
     // show
     @Test
     public void show_withoutArgs_calls_show_withFalse() {
@@ -100,55 +275,138 @@ public class StaggeredAnimationGroupTest {
         verify(spiedGroup, times(1)).hide(false);
     }
 
-    // applyStaggeredTransitionParams
+    // staggered transition params
     @Test
-    public void applyStaggeredTransitionParams_setsPassedViewId_asTarget() {
+    public void prepareStaggeredTransition_setsViewId_asTargetOfPartialTransition() {
         //given
         StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
-        Transition testTransition = new Fade(); //exemplary value
-        int testIndexInStaggeredTransition = 0; //exemplary value
         int viewId = 12345; //exemplary value
+        spiedGroup.setReferencedIds(new int[]{viewId});
 
         //when
-        Transition resultTransition = spiedGroup.applyStaggeredTransitionParams(testTransition, viewId, testIndexInStaggeredTransition);
+        TransitionSet staggeredTransition = spiedGroup.prepareStaggeredTransition(true, false);
 
         //then
-        List<Integer> targetIds = resultTransition.getTargetIds();
+        List<Integer> targetIds = staggeredTransition.getTransitionAt(0).getTargetIds();
         assertThat(targetIds).hasSize(1);
         assertThat(targetIds.get(0)).isEqualTo(viewId);
     }
 
     @Test
-    public void applyStaggeredTransitionParams_setsNoDelay_forFirstView() {
-        applyStaggeredTransitionParams_setsDelay(0, 0);
+    public void prepareStaggeredTransition_setsNoDelay_forFirstView() {
+        prepareStaggeredTransition_setsDelay(0, 0);
+    }
+
+    @Test
+    public void prepareStaggeredTransition_setsSingleDelay_forSecondView() {
+        prepareStaggeredTransition_setsDelay(1, StaggeredAnimationGroup.DEFAULT_PARTIAL_TRANSITION_DELAY);
+    }
+
+    @Test
+    public void prepareStaggeredTransition_setsDoubleDelay_forThirdView() {
+        prepareStaggeredTransition_setsDelay(2, 2 * StaggeredAnimationGroup.DEFAULT_PARTIAL_TRANSITION_DELAY);
+    }
+
+    @Test
+    public void prepareStaggeredTransition_setsTripleDelay_forFourthView() {
+        prepareStaggeredTransition_setsDelay(3, 3 * StaggeredAnimationGroup.DEFAULT_PARTIAL_TRANSITION_DELAY);
+    }
+
+    public void prepareStaggeredTransition_setsDelay(int indexInStaggeredTransition, int expectedDelay) {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setReferencedIds(new int[]{1, 2, 3, 4}); //exemplary value
+
+        //when
+        TransitionSet staggeredTransition = spiedGroup.prepareStaggeredTransition(true, false);
+
+        //then
+        assertThat(staggeredTransition.getTransitionAt(indexInStaggeredTransition).getStartDelay())
+                .isEqualTo(expectedDelay);
+    }
+
+    // computeStartDelay
+    @Test
+    public void computeStartDelay_isLinear_whenMaxTotalDuration_isNotSet() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setPartialDelay(50);
+
+        //when
+        long delay = spiedGroup.computeStartDelay(59, 60);
+
+        //then
+        assertThat(delay).isEqualTo(59 * 50);
     }
 
     @Test
-    public void applyStaggeredTransitionParams_setsSingleDelay_forSecondView() {
-        applyStaggeredTransitionParams_setsDelay(1, StaggeredAnimationGroup.DEFAULT_PARTIAL_TRANSITION_DELAY);
+    public void computeStartDelay_isLinear_whenMaxTotalDuration_isNotExceeded() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setPartialDelay(50);
+        spiedGroup.setPartialDuration(250);
+        spiedGroup.setMaxTotalDuration(1000);
+
+        //when
+        long delay = spiedGroup.computeStartDelay(3, 4);
+
+        //then
+        assertThat(delay).isEqualTo(3 * 50);
     }
 
     @Test
-    public void applyStaggeredTransitionParams_setsDoubleDelay_forThirdView() {
-        applyStaggeredTransitionParams_setsDelay(2, 2 * StaggeredAnimationGroup.DEFAULT_PARTIAL_TRANSITION_DELAY);
+    public void computeStartDelay_isCompressed_whenMaxTotalDuration_isExceeded() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setPartialDelay(50);
+        spiedGroup.setPartialDuration(250);
+        spiedGroup.setMaxTotalDuration(1000);
+
+        //when
+        long firstDelay = spiedGroup.computeStartDelay(0, 60);
+        long middleDelay = spiedGroup.computeStartDelay(30, 60);
+        long lastDelay = spiedGroup.computeStartDelay(59, 60);
+
+        //then
+        assertThat(firstDelay).isEqualTo(0);
+        assertThat(middleDelay).isEqualTo(Math.round(30f / 59 * 750));
+        assertThat(lastDelay).isEqualTo(750);
     }
 
     @Test
-    public void applyStaggeredTransitionParams_setsTripleDelay_forFourthView() {
-        applyStaggeredTransitionParams_setsDelay(3, 3 * StaggeredAnimationGroup.DEFAULT_PARTIAL_TRANSITION_DELAY);
+    public void computeStartDelay_usesDelayCurve_whenMaxTotalDuration_isExceeded() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        spiedGroup.setPartialDelay(50);
+        spiedGroup.setPartialDuration(250);
+        spiedGroup.setMaxTotalDuration(1000, new TimeInterpolator() {
+            @Override
+            public float getInterpolation(float input) {
+                return input * input;
+            }
+        });
+
+        //when
+        long middleDelay = spiedGroup.computeStartDelay(30, 61);
+        long lastDelay = spiedGroup.computeStartDelay(60, 61);
+
+        //then
+        assertThat(middleDelay).isEqualTo(Math.round(0.25f * 750));
+        assertThat(lastDelay).isEqualTo(750);
     }
 
-    public void applyStaggeredTransitionParams_setsDelay(int indexInStaggeredTransition, int expectedDelay) {
+    @Test
+    public void getEffectivePartialDuration_isCapped_byMaxTotalDuration() {
         //given
         StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
-        Transition testTransition = new Fade(); //exemplary value
-        int testViewId = 0; //exemplary value
+        spiedGroup.setPartialDuration(250);
 
         //when
-        Transition resultTransition = spiedGroup.applyStaggeredTransitionParams(testTransition, testViewId, indexInStaggeredTransition);
+        spiedGroup.setMaxTotalDuration(100);
 
         //then
-        assertThat(resultTransition.getStartDelay()).isEqualTo(expectedDelay);
+        assertThat(spiedGroup.getEffectivePartialDuration()).isEqualTo(100);
+        assertThat(spiedGroup.computeStartDelay(5, 10)).isEqualTo(0);
     }
 
     // partialTransitionFactory
@@ -414,4 +672,182 @@ public class StaggeredAnimationGroupTest {
         //then
         assertThat(spiedGroup.partialInterpolator).isEqualTo(testInterpolator);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void preparePartialTransition_setsSampledPartialInterpolator_whenSamplingIsEnabled() {
+        //given
+        final StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+        final TimeInterpolator testInterpolator = new LinearOutSlowInInterpolator();
+        final Transition spiedTransition = spy(new AutoTransition());
+        final StaggeredAnimationGroup.PartialTransitionFactory factory =
+                new StaggeredAnimationGroup.PartialTransitionFactory() {
+                    @Override
+                    public Transition createPartialTransition(boolean show, int viewId, int indexInTransition) {
+                        return spiedTransition;
+                    }
+                };
+        spiedGroup.setPartialTransitionFactory(factory);
+        spiedGroup.setPartialInterpolator(testInterpolator);
+
+        //when
+        spiedGroup.setInterpolatorSamplingEnabled(true);
+        spiedGroup.preparePartialTransition(true, 0, 0);
+
+        //then
+        verify(spiedTransition, times(1)).setInterpolator(SampledInterpolator.of(testInterpolator));
+        assertThat(spiedGroup.partialInterpolator).isEqualTo(testInterpolator);
+    }
+
+    //staggerEngine
+    @Test
+    public void staggerEngine_isTransitions_asInitialState() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+
+        //when
+        // nothing to do here (this checks the initial state)
+
+        //then
+        assertThat(spiedGroup.staggerEngine).isEqualTo(StaggeredAnimationGroup.ENGINE_TRANSITIONS);
+        assertThat(spiedGroup.isAnimatorEngineUsed()).isFalse();
+    }
+
+    @Test
+    public void staggerEngine_isModified_when_setStaggerEngine_isCalled() {
+        //given
+        StaggeredAnimationGroup spiedGroup = prepareSpiedGroup();
+
+        //when
+        spiedGroup.setStaggerEngine(StaggeredAnimationGroup.ENGINE_ANIMATOR);
+
+        //then
+        assertThat(spiedGroup.staggerEngine).isEqualTo(StaggeredAnimationGroup.ENGINE_ANIMATOR);
+        assertThat(spiedGroup.isAnimatorEngineUsed()).isTrue();
+    }
+
+    //staggerOrder
+    @Test
+    public void getOrder_isReferencedIdsOrder_byDefault() {
+        //given
+        StaggeredAnimationGroup group = prepareGroupInGrid();
+
+        //when
+        int[] order = group.getOrder();
+
+        //then
+        assertThat(order).asList().containsExactly(0, 1, 2, 3).inOrder();
+    }
+
+    @Test
+    public void getOrder_sortsViews_byStaggerOrder() {
+        //given
+        StaggeredAnimationGroup group = prepareGroupInGrid();
+
+        //when
+        group.setStaggerOrder(StaggerOrders.topToBottom());
+        int[] topToBottom = group.getOrder().clone();
+        group.setStaggerOrder(StaggerOrders.leftToRight());
+        int[] leftToRight = group.getOrder().clone();
+
+        //then
+        // ids order: bottom-right, top-left, bottom-left, top-right
+        assertThat(topToBottom).asList().containsExactly(1, 3, 2, 0).inOrder();
+        assertThat(leftToRight).asList().containsExactly(1, 2, 3, 0).inOrder();
+    }
+
+    @Test
+    public void getOrder_isComputedOnce_untilNextLayout() {
+        //given
+        StaggeredAnimationGroup group = prepareGroupInGrid();
+        CountingStaggerOrder countingOrder = new CountingStaggerOrder();
+        group.setStaggerOrder(countingOrder);
+
+        //when
+        group.getOrder();
+        group.getOrder();
+        group.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(countingOrder.calls).isEqualTo(4);
+    }
+
+    @Test
+    public void getOrder_isRecomputed_afterLayout() {
+        //given
+        StaggeredAnimationGroup group = prepareGroupInGrid();
+        CountingStaggerOrder countingOrder = new CountingStaggerOrder();
+        group.setStaggerOrder(countingOrder);
+        group.getOrder();
+
+        //when
+        group.updatePostLayout((ConstraintLayout) group.getParent());
+        group.getOrder();
+
+        //then
+        assertThat(countingOrder.calls).isEqualTo(8);
+    }
+
+    @Test
+    public void getOrder_isResorted_whenViewsMoved_afterLayout() {
+        //given
+        StaggeredAnimationGroup group = prepareGroupInGrid();
+        ConstraintLayout parent = (ConstraintLayout) group.getParent();
+        group.setStaggerOrder(StaggerOrders.topToBottom());
+        group.getOrder();
+
+        //when
+        // moves the top-left view below the bottom row
+        parent.getChildAt(1).layout(0, 200, 100, 300);
+        group.updatePostLayout(parent);
+        int[] order = group.getOrder();
+
+        //then
+        assertThat(order).asList().containsExactly(3, 2, 0, 1).inOrder();
+    }
+
+    @Test
+    public void obtainStaggeredTransition_returns_sameInstance_whenOrderDidNotChange_afterLayout() {
+        //given
+        StaggeredAnimationGroup group = prepareGroupInGrid();
+        group.setStaggerOrder(StaggerOrders.topToBottom());
+        Transition first = group.obtainStaggeredTransition(true, false);
+
+        //when
+        group.updatePostLayout((ConstraintLayout) group.getParent());
+        Transition second = group.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(second).isSameAs(first);
+    }
+
+    /**
+     * 2x2 grid of views, referenced in order: bottom-right, top-left, bottom-left, top-right.
+     */
+    private static StaggeredAnimationGroup prepareGroupInGrid() {
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        int[][] positions = new int[][]{{100, 100}, {0, 0}, {0, 100}, {100, 0}};
+        int[] ids = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            View view = new View(RuntimeEnvironment.application);
+            view.setId(i + 1);
+            parent.addView(view);
+            view.layout(positions[i][0], positions[i][1], positions[i][0] + 100, positions[i][1] + 100);
+            ids[i] = view.getId();
+        }
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        parent.addView(group);
+        group.setReferencedIds(ids);
+        return group;
+    }
+
+    private static final class CountingStaggerOrder implements StaggeredAnimationGroup.StaggerOrder {
+
+        int calls;
+
+        @Override
+        public double getOrderKey(View view, int indexInGroup) {
+            calls++;
+            return view.getTop();
+        }
+    }
+}
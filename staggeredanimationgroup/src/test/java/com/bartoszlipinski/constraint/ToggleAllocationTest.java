@@ -0,0 +1,141 @@
+package com.bartoszlipinski.constraint;
+
+import android.support.annotation.NonNull;
+import android.support.constraint.ConstraintLayout;
+import android.support.transition.Fade;
+import android.support.transition.Transition;
+import android.support.transition.TransitionSet;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static com.bartoszlipinski.constraint.internal.Utilities.prepareGroupInParent;
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Guards the steady-state show()/hide() path: once prepared, toggling a group must not create nor
+ * clone any transitions, nor reallocate its internal arrays.
+ */
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class ToggleAllocationTest {
+
+    private static final int[] GROUP_SIZES = new int[]{1, 10, 100};
+    private static final int TOGGLES = 20;
+
+    @Test
+    public void firstToggles_preparePartialTransitions_onlyOncePerDirection() {
+        for (int groupSize : GROUP_SIZES) {
+            //given
+            ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+            StaggeredAnimationGroup group = prepareGroupInParent(parent, groupSize);
+            CountingFactory factory = new CountingFactory();
+            group.setPartialTransitionFactory(factory);
+
+            //when
+            toggle(group, TOGGLES);
+
+            //then
+            assertThat(factory.calls).isEqualTo(4 * groupSize);
+        }
+    }
+
+    @Test
+    public void steadyStateToggles_reuseCachedTransitions() {
+        for (int groupSize : GROUP_SIZES) {
+            //given
+            ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+            StaggeredAnimationGroup group = prepareGroupInParent(parent, groupSize);
+            CountingFactory factory = new CountingFactory();
+            group.setPartialTransitionFactory(factory);
+            toggle(group, 1);
+            factory.calls = 0;
+            TransitionSet[] cachedTransitions = group.preparedTransitions.clone();
+
+            //when
+            toggle(group, TOGGLES);
+
+            //then
+            // without per-run listeners the cached transitions are run as they are, not cloned
+            assertThat(factory.calls).isEqualTo(0);
+            assertThat(cachedTransitions).asList().doesNotContain(null);
+            assertThat(group.preparedTransitions).asList().containsExactly((Object[]) cachedTransitions).inOrder();
+            assertThat(group.obtainStaggeredTransition(true, false))
+                    .isSameAs(cachedTransitions[StaggeredAnimationGroup.preparedTransitionIndex(true, false)]);
+        }
+    }
+
+    @Test
+    public void steadyStateToggles_reuseInternalArrays() {
+        for (int groupSize : GROUP_SIZES) {
+            //given
+            ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+            StaggeredAnimationGroup group = prepareGroupInParent(parent, groupSize);
+            toggle(group, 1);
+            int[] nonZeroIds = group.getNonZeroIds();
+            int[] order = group.getOrder();
+            int[] batchSteps = group.getBatchSteps();
+            long[] forwardStartDelays = group.getStartDelays(false);
+            long[] reversedStartDelays = group.getStartDelays(true);
+
+            //when
+            toggle(group, TOGGLES);
+
+            //then
+            assertThat(group.getNonZeroIds()).isSameAs(nonZeroIds);
+            assertThat(group.getOrder()).isSameAs(order);
+            assertThat(group.getBatchSteps()).isSameAs(batchSteps);
+            assertThat(group.getStartDelays(false)).isSameAs(forwardStartDelays);
+            assertThat(group.getStartDelays(true)).isSameAs(reversedStartDelays);
+        }
+    }
+
+    @Test
+    public void steadyStateToggles_reuseEngineArrays_whenAnimatorEngineIsUsed() {
+        for (int groupSize : GROUP_SIZES) {
+            //given
+            ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+            StaggeredAnimationGroup group = prepareGroupInParent(parent, groupSize);
+            group.setStaggerEngine(StaggeredAnimationGroup.ENGINE_ANIMATOR);
+            CountingFactory factory = new CountingFactory();
+            group.setPartialTransitionFactory(factory);
+            group.show();
+            AnimatorStaggerEngine engine = group.getAnimatorEngine();
+            View[] views = engine.views;
+            long[] startDelays = engine.timeline.startDelays;
+
+            //when
+            toggle(group, TOGGLES);
+
+            //then
+            assertThat(factory.calls).isEqualTo(0);
+            assertThat(engine.views).isSameAs(views);
+            assertThat(engine.timeline.startDelays).isSameAs(startDelays);
+        }
+    }
+
+    private static void toggle(StaggeredAnimationGroup group, int times) {
+        for (int i = 0; i < times; i++) {
+            group.show(false);
+            group.hide(false);
+            group.show(true);
+            group.hide(true);
+        }
+    }
+
+    private static final class CountingFactory implements StaggeredAnimationGroup.PartialTransitionFactory {
+
+        int calls;
+
+        @NonNull
+        @Override
+        public Transition createPartialTransition(boolean show, int viewId, int indexInTransition) {
+            calls++;
+            return new Fade();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.bartoszlipinski.constraint;
+
+import android.support.constraint.ConstraintLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static com.bartoszlipinski.constraint.internal.Utilities.prepareGroupInParent;
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE, sdk = 23)
+@RunWith(RobolectricTestRunner.class)
+public class TracingTest {
+
+    private static final int GROUP_ID = 0x7f0a0001;
+    private static final int GROUP_SIZE = 3;
+    // 2 * 50 + 250
+    private static final long TOTAL_DURATION = 350;
+
+    @Test
+    public void show_beginsStaggerTrace_taggedWithGroupIdAndMemberCount() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup();
+        group.setTracingEnabled(true);
+
+        //when
+        group.show();
+
+        //then
+        assertThat(group.staggerTraceName)
+                .isEqualTo("show StaggeredAnimationGroup id=0x7f0a0001 members=" + GROUP_SIZE);
+    }
+
+    @Test
+    public void show_doesNotTraceStagger_whenTracingIsDisabled() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup();
+
+        //when
+        group.show();
+
+        //then
+        assertThat(group.staggerTraceName).isNull();
+    }
+
+    @Test
+    public void staggerTrace_ends_afterExpectedDurationOfStagger() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup();
+        group.setTracingEnabled(true);
+        group.hide();
+
+        //when
+        ShadowLooper.idleMainLooper(TOTAL_DURATION);
+
+        //then
+        assertThat(group.staggerTraceName).isNull();
+    }
+
+    @Test
+    public void staggerTrace_isReplaced_byNextStagger() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup();
+        group.setTracingEnabled(true);
+        group.show();
+
+        //when
+        group.hide();
+
+        //then
+        assertThat(group.staggerTraceName).startsWith("hide");
+    }
+
+    @Test
+    public void staggerTrace_ends_whenTracingIsDisabled() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup();
+        group.setTracingEnabled(true);
+        group.show();
+
+        //when
+        group.setTracingEnabled(false);
+
+        //then
+        assertThat(group.staggerTraceName).isNull();
+    }
+
+    @Test
+    public void staggerTrace_ends_whenGroupIsReleased() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup();
+        group.setTracingEnabled(true);
+        group.show();
+
+        //when
+        group.releaseStaggeredAnimation();
+
+        //then
+        assertThat(group.staggerTraceName).isNull();
+    }
+
+    @Test
+    public void prepareStaggeredTransition_isTraced_withoutFailing() {
+        //given
+        StaggeredAnimationGroup group = prepareGroup();
+        group.setTracingEnabled(true);
+
+        //when
+        group.prepareStaggeredTransition(true, false);
+        group.prepareStaggeredTransition(false, true);
+
+        //then
+        assertThat(group.staggerTraceName).isNull();
+    }
+
+    private static StaggeredAnimationGroup prepareGroup() {
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        group.setId(GROUP_ID);
+        return group;
+    }
+}
@@ -61,4 +61,31 @@ public class UtilsTest {
         //then
         assertThat(result).isNull();
     }
-}
\ No newline at end of file
+
+    // sortIndicesByKeys
+    @Test
+    public void sortIndicesByKeys_sortsIndices_ascendingByKeys() {
+        //given
+        Integer[] indices = new Integer[]{0, 1, 2, 3};
+        double[] keys = new double[]{30, 10, 40, 20};
+
+        //when
+        Utils.sortIndicesByKeys(indices, keys);
+
+        //then
+        assertThat(indices).asList().containsExactly(1, 3, 0, 2).inOrder();
+    }
+
+    @Test
+    public void sortIndicesByKeys_keepsOrder_ofEqualKeys() {
+        //given
+        Integer[] indices = new Integer[]{0, 1, 2, 3};
+        double[] keys = new double[]{10, 0, 10, 0};
+
+        //when
+        Utils.sortIndicesByKeys(indices, keys);
+
+        //then
+        assertThat(indices).asList().containsExactly(1, 3, 0, 2).inOrder();
+    }
+}
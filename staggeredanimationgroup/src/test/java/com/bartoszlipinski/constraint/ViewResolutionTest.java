@@ -0,0 +1,191 @@
+package com.bartoszlipinski.constraint;
+
+import android.content.Context;
+import android.support.constraint.ConstraintLayout;
+import android.support.transition.Transition;
+import android.support.transition.TransitionSet;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLog;
+
+import static com.bartoszlipinski.constraint.internal.Utilities.layOut;
+import static com.bartoszlipinski.constraint.internal.Utilities.prepareGroupInParent;
+import static com.google.common.truth.Truth.assertThat;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class ViewResolutionTest {
+
+    private static final int GROUP_SIZE = 3;
+    private static final int PARENT_SIZE = 500;
+
+    @Test
+    public void prepareStaggeredTransition_targetsResolvedViews() {
+        //given
+        CountingConstraintLayout parent = new CountingConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+
+        //when
+        TransitionSet set = (TransitionSet) group.prepareStaggeredTransition(true, false);
+
+        //then
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            Transition partial = set.getTransitionAt(i);
+            assertThat(partial.getTargetIds()).isEmpty();
+            assertThat(partial.getTargets()).containsExactly(parent.getChildAt(i));
+        }
+    }
+
+    @Test
+    public void prepareStaggeredTransition_targetsIds_whenViewsCantBeResolved() {
+        //given
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        group.setReferencedIds(new int[]{1, 2});
+
+        //when
+        TransitionSet set = (TransitionSet) group.prepareStaggeredTransition(true, false);
+
+        //then
+        assertThat(set.getTransitionAt(0).getTargetIds()).containsExactly(1);
+        assertThat(set.getTransitionAt(1).getTargetIds()).containsExactly(2);
+    }
+
+    @Test
+    public void views_areResolvedOnce_whenGroupIsToggled() {
+        //given
+        CountingConstraintLayout parent = new CountingConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        int[] nonZeroIds = group.getNonZeroIds();
+
+        //when
+        group.hide();
+        group.show();
+        group.hide();
+        group.show();
+
+        //then
+        assertThat(parent.getViewByIdCalls).isEqualTo(GROUP_SIZE);
+        assertThat(group.getNonZeroIds()).isSameAs(nonZeroIds);
+    }
+
+    @Test
+    public void views_areResolvedAgain_whenReferencedIdsChange() {
+        //given
+        CountingConstraintLayout parent = new CountingConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        group.show();
+        int[] nonZeroIds = group.getNonZeroIds();
+
+        //when
+        group.setReferencedIds(new int[]{1, 2});
+        group.show();
+        group.hide();
+
+        //then
+        assertThat(parent.getViewByIdCalls).isEqualTo(GROUP_SIZE + 2);
+        assertThat(group.getNonZeroIds()).isNotSameAs(nonZeroIds);
+    }
+
+    @Test
+    public void preparedTransitions_areInvalidated_whenResolvedViewChanges() {
+        //given
+        CountingConstraintLayout parent = new CountingConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        Transition first = group.obtainStaggeredTransition(true, false);
+        parent.removeViewAt(0);
+        View replacement = new View(RuntimeEnvironment.application);
+        replacement.setId(1);
+        parent.addView(replacement, 0);
+
+        //when
+        group.updatePostLayout(parent);
+        Transition second = group.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(second).isNotSameAs(first);
+        assertThat(((TransitionSet) second).getTransitionAt(0).getTargets()).containsExactly(replacement);
+    }
+
+    @Test
+    public void preparedTransitions_areKept_whenLayoutDoesntChangeViews() {
+        //given
+        CountingConstraintLayout parent = new CountingConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        Transition first = group.obtainStaggeredTransition(true, false);
+
+        //when
+        group.updatePostLayout(parent);
+        Transition second = group.obtainStaggeredTransition(true, false);
+
+        //then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void views_areNotResolvedAgain_afterLayoutPass_whenChildrenDontChange() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        layOut(parent, PARENT_SIZE);
+        group.show();
+
+        //when
+        group.hide();
+        layOut(parent, PARENT_SIZE);
+        group.updatePostLayout(parent);
+
+        //then
+        assertThat(group.viewsDirty).isFalse();
+    }
+
+    @Test
+    public void views_areResolvedAgain_afterLayoutPass_whenChildIsAdded() {
+        //given
+        ConstraintLayout parent = new ConstraintLayout(RuntimeEnvironment.application);
+        StaggeredAnimationGroup group = prepareGroupInParent(parent, GROUP_SIZE);
+        group.show();
+        View view = new View(RuntimeEnvironment.application);
+        view.setId(GROUP_SIZE + 1);
+        parent.addView(view);
+
+        //when
+        group.updatePostLayout(parent);
+
+        //then
+        assertThat(group.viewsDirty).isTrue();
+    }
+
+    @Test
+    public void resolvingViews_withoutParent_doesntWarnPerView() {
+        //given
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(RuntimeEnvironment.application);
+        group.setReferencedIds(new int[]{1, 2, 3});
+        ShadowLog.reset();
+
+        //when
+        group.prepareStaggeredTransition(true, false);
+
+        //then
+        assertThat(ShadowLog.getLogsForTag("StaggeredAnimationGroup")).isEmpty();
+    }
+
+    private static final class CountingConstraintLayout extends ConstraintLayout {
+
+        int getViewByIdCalls;
+
+        CountingConstraintLayout(Context context) {
+            super(context);
+        }
+
+        @Override
+        public View getViewById(int id) {
+            getViewByIdCalls++;
+            return super.getViewById(id);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.bartoszlipinski.constraint.internal;
+
+import com.bartoszlipinski.constraint.StaggeredAnimationGroup;
+
+public final class RecordingStaggerListener implements StaggeredAnimationGroup.StaggerListener {
+
+    public String events = "";
+
+    @Override
+    public void onStaggerStart(boolean show) {
+        events += "start(" + show + ") ";
+    }
+
+    @Override
+    public void onPartialEnd(int viewId, int indexInTransition) {
+        events += "partialEnd(" + viewId + ", " + indexInTransition + ") ";
+    }
+
+    @Override
+    public void onStaggerEnd(boolean show, boolean cancelled) {
+        events += "end(" + show + ", " + cancelled + ") ";
+    }
+}
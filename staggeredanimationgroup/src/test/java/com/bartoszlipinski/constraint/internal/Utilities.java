@@ -1,9 +1,16 @@
 package com.bartoszlipinski.constraint.internal;
 
+import android.support.constraint.ConstraintLayout;
+import android.support.transition.Transition;
+import android.view.View;
+
 import com.bartoszlipinski.constraint.StaggeredAnimationGroup;
 
 import org.robolectric.RuntimeEnvironment;
 
+import java.lang.reflect.Field;
+import java.util.List;
+
 import static org.mockito.Mockito.spy;
 
 public final class Utilities {
@@ -12,6 +19,44 @@ public final class Utilities {
         return spy(group);
     }
 
+    /**
+     * Adds {@code groupSize} views with ids {@code 1..groupSize} to the {@code parent}
+     * followed by a group referencing all of them.
+     */
+    public static StaggeredAnimationGroup prepareGroupInParent(ConstraintLayout parent, int groupSize) {
+        int[] ids = new int[groupSize];
+        for (int i = 0; i < groupSize; i++) {
+            View view = new View(parent.getContext());
+            view.setId(i + 1);
+            parent.addView(view);
+            ids[i] = view.getId();
+        }
+        StaggeredAnimationGroup group = new StaggeredAnimationGroup(parent.getContext());
+        parent.addView(group);
+        group.setReferencedIds(ids);
+        return group;
+    }
+
+    public static void layOut(View view, int size) {
+        int spec = View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.EXACTLY);
+        view.measure(spec, spec);
+        view.layout(0, 0, size, size);
+    }
+
+    /**
+     * Number of listeners added to {@code transition} itself (clones of a transition share them).
+     */
+    public static int countListeners(Transition transition) {
+        try {
+            Field field = Transition.class.getDeclaredField("mListeners");
+            field.setAccessible(true);
+            List<?> listeners = (List<?>) field.get(transition);
+            return listeners == null ? 0 : listeners.size();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     // Suppress default constructor for noninstantiability
     private Utilities() {
         throw new AssertionError();